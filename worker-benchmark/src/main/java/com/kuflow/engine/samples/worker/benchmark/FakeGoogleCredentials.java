@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Points the Google Sheets properties to fake client secrets and to a temporary tokens directory holding a token that
+ * never expires, so the authorization flow never opens a browser nor calls Google.
+ */
+final class FakeGoogleCredentials {
+
+    private FakeGoogleCredentials() {}
+
+    static void configure(GoogleSheetsProperties googleSheets) throws IOException {
+        Path tokensDirectory = Files.createTempDirectory("benchmark-tokens");
+        googleSheets.setCredentialsFile("/benchmark-credentials.json");
+        googleSheets.setTokensDirectory(tokensDirectory.toString());
+        googleSheets.setInteractiveAuthorization(false);
+
+        StoredCredential storedCredential = new StoredCredential();
+        storedCredential.setAccessToken("benchmark-access-token");
+        storedCredential.setRefreshToken("benchmark-refresh-token");
+        storedCredential.setExpirationTimeMilliseconds(Long.MAX_VALUE);
+        new FileDataStoreFactory(tokensDirectory.toFile())
+            .<StoredCredential>getDataStore(StoredCredential.DEFAULT_DATA_STORE_ID)
+            .set("user", storedCredential);
+    }
+}
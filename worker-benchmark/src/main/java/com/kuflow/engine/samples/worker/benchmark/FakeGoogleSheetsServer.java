@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.sheets.v4.model.AppendValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local stand-in for the Sheets API {@code values.get}, {@code values.batchGet} and {@code values.append} endpoints,
+ * serving spreadsheets laid out like the bus one: the billboard in A1:D2 and the passengers from row 5 onwards, with
+ * the seats available in D2 computed as the seats minus the passengers. Every spreadsheet id gets its own passengers,
+ * all of them with the same capacity. The seats are returned as numbers when the values are requested unformatted.
+ * Every request is answered after a fixed latency.
+ *
+ * <p>With a quota, the read and the write requests beyond {@code quota / 60} in the same second are answered with a
+ * 429, as the real API does when the per minute quota is exceeded.
+ */
+final class FakeGoogleSheetsServer implements AutoCloseable {
+
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+
+    private static final Pattern CELL = Pattern.compile("([A-Z]*)(\\d*)");
+
+    private static final int FIRST_RESERVATION_ROW = 5;
+
+    private static final String SPREADSHEETS_PATH = "/v4/spreadsheets/";
+
+    private static final byte[] QUOTA_EXCEEDED = (
+        "{\"error\": {\"code\": 429, \"message\": \"Quota exceeded\", \"status\": \"RESOURCE_EXHAUSTED\"}}"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private final SeatsProperties seatsProperties;
+
+    private final Duration latency;
+
+    private final int requestsPerSecond;
+
+    private long quotaSecond;
+
+    private int quotaReads;
+
+    private int quotaWrites;
+
+    private final Map<String, List<List<Object>>> reservations = new HashMap<>();
+
+    private final AtomicInteger readRequests = new AtomicInteger();
+
+    private final AtomicInteger appendRequests = new AtomicInteger();
+
+    private final AtomicInteger throttledRequests = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    private final HttpServer server;
+
+    /**
+     * @param quota read and write requests allowed per minute, each, 0 for no quota
+     */
+    FakeGoogleSheetsServer(SeatsProperties seatsProperties, Duration latency, int quota, int threads)
+        throws IOException {
+        this.seatsProperties = seatsProperties;
+        this.latency = latency;
+        this.requestsPerSecond = quota > 0 ? Math.max(quota / 60, 1) : 0;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext(SPREADSHEETS_PATH, this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return root URL to configure in the Sheets client
+     */
+    String getRootUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/";
+    }
+
+    synchronized int getReservationCount() {
+        return this.reservations.values().stream().mapToInt(List::size).sum();
+    }
+
+    synchronized int getReservationCount(String spreadsheetId) {
+        return this.getReservations(spreadsheetId).size();
+    }
+
+    int getReadRequests() {
+        return this.readRequests.get();
+    }
+
+    int getAppendRequests() {
+        return this.appendRequests.get();
+    }
+
+    int getThrottledRequests() {
+        return this.throttledRequests.get();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Thread.sleep(this.latency.toMillis());
+
+            // /v4/spreadsheets/{id}/values/{range}, /v4/spreadsheets/{id}/values/{range}:append or values:batchGet
+            String path = exchange.getRequestURI().getRawPath();
+            int valuesIndex = path.indexOf("/values");
+            String spreadsheetId = this.decode(path.substring(SPREADSHEETS_PATH.length(), valuesIndex));
+            String values = path.substring(valuesIndex + "/values".length());
+
+            if (!this.acquireQuota(values.endsWith(":append"))) {
+                this.throttledRequests.incrementAndGet();
+                this.send(exchange, 429, QUOTA_EXCEEDED);
+                return;
+            }
+
+            Object response;
+            if (values.equals(":batchGet")) {
+                this.readRequests.incrementAndGet();
+                response = this.batchGet(
+                    spreadsheetId,
+                    this.getQueryParameters(exchange, "ranges"),
+                    this.isUnformatted(exchange)
+                );
+            } else if (values.endsWith(":append")) {
+                this.appendRequests.incrementAndGet();
+                ValueRange body = JSON_FACTORY.fromInputStream(this.getRequestBody(exchange), ValueRange.class);
+                String range = this.decode(values.substring(1, values.length() - ":append".length()));
+                response = this.append(spreadsheetId, range, body);
+            } else {
+                this.readRequests.incrementAndGet();
+                response = this.get(spreadsheetId, this.decode(values.substring(1)), this.isUnformatted(exchange));
+            }
+
+            this.send(exchange, 200, JSON_FACTORY.toByteArray(response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            this.send(exchange, 400, e.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private synchronized boolean acquireQuota(boolean write) {
+        if (this.requestsPerSecond == 0) {
+            return true;
+        }
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        if (second != this.quotaSecond) {
+            this.quotaSecond = second;
+            this.quotaReads = 0;
+            this.quotaWrites = 0;
+        }
+
+        int requests = write ? ++this.quotaWrites : ++this.quotaReads;
+
+        return requests <= this.requestsPerSecond;
+    }
+
+    private BatchGetValuesResponse batchGet(String spreadsheetId, List<String> ranges, boolean unformatted) {
+        List<ValueRange> valueRanges = new ArrayList<>();
+        for (String range : ranges) {
+            valueRanges.add(this.get(spreadsheetId, range, unformatted));
+        }
+
+        return new BatchGetValuesResponse().setValueRanges(valueRanges);
+    }
+
+    private synchronized ValueRange get(String spreadsheetId, String range, boolean unformatted) {
+        List<List<Object>> reservations = this.getReservations(spreadsheetId);
+        String sheetName = range.substring(0, range.indexOf('!') + 1);
+        String[] cells = range.substring(sheetName.length()).split(":");
+        int[] start = this.parseCell(cells[0], 0, 1);
+        int[] end = cells.length > 1 ? this.parseCell(cells[1], Integer.MAX_VALUE, Integer.MAX_VALUE) : start;
+
+        // As the real API, trailing empty rows and cells are not returned
+        List<List<Object>> rows = new ArrayList<>();
+        int lastRow = Math.min(end[1], FIRST_RESERVATION_ROW + reservations.size() - 1);
+        for (int row = start[1]; row <= lastRow; row++) {
+            List<Object> values = new ArrayList<>();
+            List<Object> sheetRow = this.getRow(reservations, row, unformatted);
+            for (int column = start[0]; column <= Math.min(end[0], sheetRow.size() - 1); column++) {
+                values.add(sheetRow.get(column));
+            }
+            rows.add(values);
+        }
+        while (!rows.isEmpty() && rows.get(rows.size() - 1).isEmpty()) {
+            rows.remove(rows.size() - 1);
+        }
+
+        return new ValueRange().setRange(range).setMajorDimension("ROWS").setValues(rows.isEmpty() ? null : rows);
+    }
+
+    private synchronized AppendValuesResponse append(String spreadsheetId, String range, ValueRange body) {
+        List<List<Object>> reservations = this.getReservations(spreadsheetId);
+        String sheetName = range.substring(0, range.indexOf('!') + 1);
+        int firstRow = FIRST_RESERVATION_ROW + reservations.size();
+        for (List<Object> row : body.getValues()) {
+            reservations.add(List.copyOf(row));
+        }
+        int lastRow = FIRST_RESERVATION_ROW + reservations.size() - 1;
+        int columns = body.getValues().stream().mapToInt(List::size).max().orElse(0);
+
+        UpdateValuesResponse updates = new UpdateValuesResponse()
+            .setUpdatedRange(sheetName + "A" + firstRow + ":" + (char) ('A' + columns - 1) + lastRow)
+            .setUpdatedRows(body.getValues().size())
+            .setUpdatedColumns(columns)
+            .setUpdatedCells(body.getValues().size() * columns);
+
+        return new AppendValuesResponse().setTableRange(sheetName + "A1:D" + (firstRow - 1)).setUpdates(updates);
+    }
+
+    private List<List<Object>> getReservations(String spreadsheetId) {
+        return this.reservations.computeIfAbsent(spreadsheetId, key -> new ArrayList<>());
+    }
+
+    private List<Object> getRow(List<List<Object>> reservations, int row, boolean unformatted) {
+        int capacity = this.seatsProperties.getCapacity();
+        if (row == 1) {
+            return List.of("Bus", "Schedule", "Seats", "Seats Available");
+        }
+        if (row == 2) {
+            // As the formula of the real sheet, =C2 - COUNTIF(A5:A16;"<>"), the seats available are not floored
+            int seatsAvailable = capacity - reservations.size();
+            return List.of(
+                this.seatsProperties.getBus(),
+                this.seatsProperties.getSchedule(),
+                unformatted ? capacity : String.valueOf(capacity),
+                unformatted ? seatsAvailable : String.valueOf(seatsAvailable)
+            );
+        }
+        if (row >= FIRST_RESERVATION_ROW && row < FIRST_RESERVATION_ROW + reservations.size()) {
+            return reservations.get(row - FIRST_RESERVATION_ROW);
+        }
+
+        return List.of();
+    }
+
+    /**
+     * @return zero based column and one based row of the cell, or the defaults when they are omitted
+     */
+    private int[] parseCell(String cell, int defaultColumn, int defaultRow) {
+        Matcher matcher = CELL.matcher(cell);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported range " + cell);
+        }
+
+        int column = defaultColumn;
+        if (!matcher.group(1).isEmpty()) {
+            column = 0;
+            for (char letter : matcher.group(1).toCharArray()) {
+                column = column * 26 + (letter - 'A' + 1);
+            }
+            column--;
+        }
+        int row = matcher.group(2).isEmpty() ? defaultRow : Integer.parseInt(matcher.group(2));
+
+        return new int[] { column, row };
+    }
+
+    private boolean isUnformatted(HttpExchange exchange) {
+        return this.getQueryParameters(exchange, "valueRenderOption").contains("UNFORMATTED_VALUE");
+    }
+
+    private List<String> getQueryParameters(HttpExchange exchange, String name) {
+        List<String> values = new ArrayList<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    values.add(this.decode(parameter.substring(name.length() + 1)));
+                }
+            }
+        }
+
+        return values;
+    }
+
+    private String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private InputStream getRequestBody(HttpExchange exchange) throws IOException {
+        // The Google client compresses the request bodies
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            return new GZIPInputStream(exchange.getRequestBody());
+        }
+
+        return exchange.getRequestBody();
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
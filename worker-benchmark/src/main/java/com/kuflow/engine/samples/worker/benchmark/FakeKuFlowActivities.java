@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.kuflow.engine.client.activity.kuflow.KuFlowActivities;
+import com.kuflow.engine.client.activity.kuflow.resource.CompleteProcessResponseResource;
+import com.kuflow.engine.client.activity.kuflow.resource.CreateTaskRequestResource;
+import com.kuflow.engine.client.activity.kuflow.resource.RetrieveTaskResponseResource;
+import com.kuflow.rest.client.resource.TaskElementValueWrapperResource;
+import com.kuflow.rest.client.resource.TaskResource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the KuFlow API used by {@code SampleWorkflowImpl}: tasks are finished after a fixed delay and
+ * the reservation form is always filled with the same passenger. The seats notified to the passengers are recorded.
+ * Any other KuFlow activity fails.
+ */
+final class FakeKuFlowActivities implements InvocationHandler {
+
+    private final Duration taskCompletionDelay;
+
+    private final Map<UUID, String> notifiedSeats = new ConcurrentHashMap<>();
+
+    private FakeKuFlowActivities(Duration taskCompletionDelay) {
+        this.taskCompletionDelay = taskCompletionDelay;
+    }
+
+    static KuFlowActivities newInstance() {
+        return new FakeKuFlowActivities(Duration.ZERO).newProxy();
+    }
+
+    static FakeKuFlowActivities withTaskCompletionDelay(Duration taskCompletionDelay) {
+        return new FakeKuFlowActivities(taskCompletionDelay);
+    }
+
+    static TaskResource newReservationFormTask() {
+        TaskResource task = new TaskResource();
+        task.putElementValuesItem("firstName", TaskElementValueWrapperResource.of("Jane"));
+        task.putElementValuesItem("lastName", TaskElementValueWrapperResource.of("Doe"));
+        task.putElementValuesItem("email", TaskElementValueWrapperResource.of("jane.doe@example.com"));
+
+        return task;
+    }
+
+    KuFlowActivities newProxy() {
+        return (KuFlowActivities) Proxy.newProxyInstance(
+            KuFlowActivities.class.getClassLoader(),
+            new Class<?>[] { KuFlowActivities.class },
+            this
+        );
+    }
+
+    /**
+     * @return seat numbers sent in the "Reservation complete" notifications, by process id
+     */
+    Map<UUID, String> getNotifiedSeats() {
+        return Map.copyOf(this.notifiedSeats);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws InterruptedException {
+        return switch (method.getName()) {
+            case "createTaskAndWaitFinished" -> {
+                this.createTaskAndWaitFinished((CreateTaskRequestResource) args[0]);
+                yield null;
+            }
+            case "retrieveTask" -> {
+                RetrieveTaskResponseResource response = new RetrieveTaskResponseResource();
+                response.setTask(newReservationFormTask());
+                yield response;
+            }
+            case "completeProcess" -> {
+                CompleteProcessResponseResource response = new CompleteProcessResponseResource();
+                response.setMessage("Process completed");
+                yield response;
+            }
+            case "toString" -> FakeKuFlowActivities.class.getSimpleName();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName() + " is not faked");
+        };
+    }
+
+    private void createTaskAndWaitFinished(CreateTaskRequestResource request) throws InterruptedException {
+        TaskElementValueWrapperResource seatNo = request.getElementValues().get("seatNo");
+        if (seatNo != null) {
+            this.notifiedSeats.put(request.getProcessId(), seatNo.getValueAsString());
+        }
+
+        Thread.sleep(this.taskCompletionDelay.toMillis());
+    }
+}
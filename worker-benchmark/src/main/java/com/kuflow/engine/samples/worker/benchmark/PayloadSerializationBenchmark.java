@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties.PayloadEncoding;
+import com.kuflow.engine.samples.worker.converter.PayloadConverterConfiguration;
+import com.kuflow.engine.samples.worker.converter.PayloadStore;
+import com.kuflow.rest.client.resource.TaskResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Serializes the workflow request and the reservation form task the way Temporal does when they cross the wire, with
+ * each payload encoding, compressing the payloads of at least {@code compressionThreshold} bytes when positive.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadSerializationBenchmark {
+
+    @Param({ "JSON", "SMILE" })
+    public PayloadEncoding encoding;
+
+    @Param({ "0", "256" })
+    public int compressionThreshold;
+
+    private DataConverter dataConverter;
+
+    private WorkflowRequestResource workflowRequest;
+
+    private TaskResource task;
+
+    private Optional<Payloads> workflowRequestPayloads;
+
+    private Optional<Payloads> taskPayloads;
+
+    @Setup
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        PayloadsProperties payloads = applicationProperties.getTemporal().getPayloads();
+        payloads.setEncoding(this.encoding);
+        payloads.setCompressionEnabled(this.compressionThreshold > 0);
+        payloads.setCompressionThreshold(DataSize.ofBytes(this.compressionThreshold));
+        PayloadConverterConfiguration payloadConverterConfiguration = new PayloadConverterConfiguration(
+            applicationProperties
+        );
+        this.dataConverter =
+            payloadConverterConfiguration.temporalDataConverter(
+                new SimpleMeterRegistry(),
+                // The claim check is disabled, so there is no payload store
+                new StaticListableBeanFactory().getBeanProvider(PayloadStore.class)
+            );
+
+        this.workflowRequest = new WorkflowRequestResource();
+        this.workflowRequest.setProcessId(UUID.randomUUID());
+        this.task = FakeKuFlowActivities.newReservationFormTask();
+
+        this.workflowRequestPayloads = this.dataConverter.toPayloads(this.workflowRequest);
+        this.taskPayloads = this.dataConverter.toPayloads(this.task);
+    }
+
+    @Benchmark
+    public Optional<Payloads> serializeWorkflowRequest() {
+        return this.dataConverter.toPayloads(this.workflowRequest);
+    }
+
+    @Benchmark
+    public WorkflowRequestResource deserializeWorkflowRequest() {
+        return this.dataConverter.fromPayloads(
+            0,
+            this.workflowRequestPayloads,
+            WorkflowRequestResource.class,
+            WorkflowRequestResource.class
+        );
+    }
+
+    @Benchmark
+    public Optional<Payloads> serializeTask() {
+        return this.dataConverter.toPayloads(this.task);
+    }
+
+    @Benchmark
+    public TaskResource deserializeTask() {
+        return this.dataConverter.fromPayloads(0, this.taskPayloads, TaskResource.class, TaskResource.class);
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.protobuf.util.Durations;
+import com.google.protobuf.util.Timestamps;
+import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
+import com.kuflow.engine.client.common.resource.WorkflowResponseResource;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.RateLimitProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.RouteProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.WorkerProperties;
+import com.kuflow.engine.samples.worker.SampleWorkflow;
+import com.kuflow.engine.samples.worker.SampleWorkflowImpl;
+import com.kuflow.engine.samples.worker.TemporalBootstrap;
+import com.kuflow.engine.samples.worker.activity.ActivityHeartbeater;
+import com.kuflow.engine.samples.worker.activity.GSheetsActivitiesImpl;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes.SeatRoute;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsAppendCoalescer;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsConfiguration;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsCredentialProvider;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsRateLimiter;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsRequestMetrics;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsSeatStore;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsValuesCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * End to end load test of the reservation workflow. It runs {@code workflows} reservations at once against the
+ * in-process Temporal test server, with the KuFlow tasks completed by a fake after a fixed delay and the Sheets API
+ * served by a local HTTP server answering after a fixed latency. Everything else is the code run by the worker: the
+ * Sheets client, its connection pool, the values cache, the append coalescer and the seat ledger.
+ *
+ * <p>It reports the throughput, the p50 and p99 latencies of the workflows, and the overbooking errors: seats given
+ * twice, seats beyond the capacity and rows written beyond the capacity. With {@code routes} greater than zero, the
+ * reservations are spread across that many routes, each one with its own spreadsheet, seats and task queue. With
+ * {@code localReads}, the seat inventory of the reservations without a route is read by a local activity. With
+ * {@code sheetsQuota} greater than zero, the Sheets API rejects the requests beyond that many per minute, and the rate
+ * limiter of the worker is sized to it.
+ *
+ * <p>Arguments: {@code workflows capacity taskDelayMillis sheetsLatencyMillis routes localReads sheetsQuota}, e.g.
+ * {@code 2000 1500 50 20 0 false 0}. It is a program run from the benchmarks jar, not a unit test run by the build.
+ */
+public final class ReservationLoadTest {
+
+    private static final String KUFLOW_QUEUE = "load-test";
+
+    private static final int SHEETS_SERVER_THREADS = 32;
+
+    private ReservationLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        int workflows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1_500;
+        Duration taskDelay = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 50);
+        Duration sheetsLatency = Duration.ofMillis(args.length > 3 ? Long.parseLong(args[3]) : 20);
+        int routeCount = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        boolean localReads = args.length > 5 && Boolean.parseBoolean(args[5]);
+        int sheetsQuota = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSeats().setCapacity(capacity);
+        applicationProperties.getTemporal().setKuflowQueue(KUFLOW_QUEUE);
+        applicationProperties.getTemporal().getLocalReads().setEnabled(localReads);
+        for (int i = 1; i <= routeCount; i++) {
+            RouteProperties route = new RouteProperties();
+            route.setSpreadsheetId("load-test-route-" + i);
+            route.setCapacity(capacity);
+            applicationProperties.getRoutes().put("route-" + i, route);
+        }
+        FakeGoogleCredentials.configure(applicationProperties.getGoogleSheets());
+        // Without a quota the requests are not limited, the load test measures the worker alone
+        RateLimitProperties rateLimit = applicationProperties.getGoogleSheets().getRateLimit();
+        rateLimit.setEnabled(sheetsQuota > 0);
+        rateLimit.setReadRequestsPerMinute(Math.max(sheetsQuota, 1));
+        rateLimit.setWriteRequestsPerMinute(Math.max(sheetsQuota, 1));
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FakeKuFlowActivities kuflowActivities = FakeKuFlowActivities.withTaskCompletionDelay(taskDelay);
+
+        try (
+            FakeGoogleSheetsServer sheetsServer = new FakeGoogleSheetsServer(
+                applicationProperties.getSeats(),
+                sheetsLatency,
+                sheetsQuota,
+                SHEETS_SERVER_THREADS
+            )
+        ) {
+            GoogleSheetsConfiguration googleSheetsConfiguration = new GoogleSheetsConfiguration(applicationProperties);
+            PoolingHttpClientConnectionManager connectionManager =
+                googleSheetsConfiguration.googleSheetsConnectionManager();
+            ApacheHttpTransport httpTransport = googleSheetsConfiguration.googleSheetsHttpTransport(connectionManager);
+            Sheets sheets = new Sheets.Builder(
+                httpTransport,
+                GoogleSheetsCredentialProvider.JSON_FACTORY,
+                new GoogleSheetsRateLimiter(
+                    applicationProperties,
+                    googleSheetsConfiguration.googleSheetsCredentialProvider(httpTransport),
+                    meterRegistry
+                )
+            )
+                .setRootUrl(sheetsServer.getRootUrl())
+                .setApplicationName(applicationProperties.getGoogleSheets().getApplicationName())
+                .build();
+
+            GoogleSheetsRequestMetrics requestMetrics = new GoogleSheetsRequestMetrics(meterRegistry);
+            GoogleSheetsValuesCache valuesCache = new GoogleSheetsValuesCache(applicationProperties);
+            GoogleSheetsAppendCoalescer appendCoalescer = new GoogleSheetsAppendCoalescer(
+                applicationProperties,
+                sheets,
+                requestMetrics,
+                meterRegistry
+            );
+            GoogleSheetsSeatStore seatStore = new GoogleSheetsSeatStore(
+                applicationProperties.getGoogleSheets(),
+                sheets,
+                valuesCache,
+                appendCoalescer,
+                requestMetrics
+            );
+            SeatLedger seatLedger = new SeatLedger(applicationProperties);
+            seatLedger.reconcile(seatStore.getOccupiedSeats());
+            SeatRoutes seatRoutes = new SeatRoutes(
+                applicationProperties,
+                sheets,
+                valuesCache,
+                appendCoalescer,
+                requestMetrics
+            );
+            for (SeatRoute route : seatRoutes.getRoutes()) {
+                route.seatLedger().reconcile(route.seatStore().getOccupiedSeats());
+            }
+
+            ActivityHeartbeater activityHeartbeater = new ActivityHeartbeater();
+            TestWorkflowEnvironment testEnvironment = TestWorkflowEnvironment.newInstance(
+                TestEnvironmentOptions
+                    .newBuilder()
+                    .setUseTimeskipping(false)
+                    .setWorkerFactoryOptions(
+                        // Every reservation in progress is kept in the sticky cache, each one holding a workflow thread
+                        WorkerFactoryOptions
+                            .newBuilder()
+                            .setWorkflowCacheSize(workflows)
+                            .setMaxWorkflowThreadCount(workflows * 2)
+                            .setWorkerInterceptors(activityHeartbeater)
+                            .build()
+                    )
+                    .build()
+            );
+            try {
+                TemporalProperties temporal = applicationProperties.getTemporal();
+                WorkerOptions googleSheetsWorkerOptions = createWorkerOptions(temporal.getGoogleSheetsWorker());
+                GSheetsActivitiesImpl gSheetsActivities = new GSheetsActivitiesImpl(seatStore, seatLedger);
+                testEnvironment
+                    .newWorker(TemporalBootstrap.getGoogleSheetsQueue(temporal), googleSheetsWorkerOptions)
+                    .registerActivitiesImplementations(gSheetsActivities);
+                Map<String, String> routeGoogleSheetsQueues = new LinkedHashMap<>();
+                for (SeatRoute route : seatRoutes.getRoutes()) {
+                    String routeGoogleSheetsQueue = TemporalBootstrap.getGoogleSheetsQueue(temporal, route.key());
+                    routeGoogleSheetsQueues.put(route.key(), routeGoogleSheetsQueue);
+                    testEnvironment
+                        .newWorker(routeGoogleSheetsQueue, googleSheetsWorkerOptions)
+                        .registerActivitiesImplementations(
+                            new GSheetsActivitiesImpl(route.seatStore(), route.seatLedger())
+                        );
+                }
+
+                Worker kuflowWorker = testEnvironment.newWorker(KUFLOW_QUEUE, createWorkerOptions(workflows));
+                String googleSheetsQueue = TemporalBootstrap.getGoogleSheetsQueue(temporal);
+                LocalActivityOptions localReadOptions = TemporalBootstrap.createLocalReadOptions(
+                    temporal.getLocalReads()
+                );
+                Map<String, ActivityOptions> googleSheetsActivityOptions =
+                    TemporalBootstrap.createGoogleSheetsActivityOptions(temporal.getGoogleSheetsActivities());
+                kuflowWorker.addWorkflowImplementationFactory(
+                    SampleWorkflow.class,
+                    () ->
+                        new SampleWorkflowImpl(
+                            googleSheetsQueue,
+                            routeGoogleSheetsQueues,
+                            localReadOptions,
+                            googleSheetsActivityOptions,
+                            null
+                        )
+                );
+                // As the worker does, the local activities run with the KuFlow ones
+                kuflowWorker.registerActivitiesImplementations(kuflowActivities.newProxy(), gSheetsActivities);
+                testEnvironment.start();
+
+                // The reservations without a route go to the default spreadsheet
+                Map<String, String> spreadsheetIds = new LinkedHashMap<>();
+                if (routeCount == 0) {
+                    String spreadsheetId = applicationProperties.getGoogleSheets().getSpreadsheetId();
+                    spreadsheetIds.put(SeatLedger.DEFAULT_ROUTE, spreadsheetId);
+                }
+                applicationProperties
+                    .getRoutes()
+                    .forEach((route, routeProperties) -> spreadsheetIds.put(route, routeProperties.getSpreadsheetId()));
+
+                Result result = run(testEnvironment, workflows, List.copyOf(spreadsheetIds.keySet()));
+                report(
+                    workflows,
+                    capacity,
+                    taskDelay,
+                    sheetsLatency,
+                    result,
+                    kuflowActivities.getNotifiedSeats(),
+                    spreadsheetIds,
+                    sheetsServer,
+                    meterRegistry
+                );
+            } finally {
+                testEnvironment.close();
+                activityHeartbeater.destroy();
+                appendCoalescer.destroy();
+                httpTransport.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Starts the reservations spread across the routes, the default route is started without the "route" memo.
+     */
+    private static Result run(TestWorkflowEnvironment testEnvironment, int workflows, List<String> routes) {
+        WorkflowClient workflowClient = testEnvironment.getWorkflowClient();
+        List<WorkflowExecution> executions = new ArrayList<>(workflows);
+        List<CompletableFuture<WorkflowResponseResource>> results = new ArrayList<>(workflows);
+        Map<UUID, String> processRoutes = new HashMap<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < workflows; i++) {
+            String route = routes.get(i % routes.size());
+            WorkflowOptions.Builder workflowOptions = WorkflowOptions
+                .newBuilder()
+                .setTaskQueue(KUFLOW_QUEUE)
+                .setWorkflowId(UUID.randomUUID().toString());
+            if (!route.equals(SeatLedger.DEFAULT_ROUTE)) {
+                workflowOptions.setMemo(Map.of("route", route));
+            }
+            SampleWorkflow workflow = workflowClient.newWorkflowStub(SampleWorkflow.class, workflowOptions.build());
+            WorkflowRequestResource request = new WorkflowRequestResource();
+            request.setProcessId(UUID.randomUUID());
+            processRoutes.put(request.getProcessId(), route);
+
+            executions.add(WorkflowClient.start(workflow::runWorkflow, request));
+            results.add(WorkflowStub.fromTyped(workflow).getResultAsync(WorkflowResponseResource.class));
+        }
+
+        int failed = 0;
+        for (CompletableFuture<WorkflowResponseResource> result : results) {
+            try {
+                result.join();
+            } catch (RuntimeException e) {
+                failed++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // The latencies are taken from the server, so they don't include the time to get the results
+        long[] latencies = new long[workflows];
+        for (int i = 0; i < workflows; i++) {
+            WorkflowExecutionInfo info = describe(testEnvironment, executions.get(i));
+            latencies[i] = Durations.toNanos(Timestamps.between(info.getStartTime(), info.getCloseTime()));
+        }
+        Arrays.sort(latencies);
+
+        return new Result(elapsed, latencies, failed, processRoutes);
+    }
+
+    private static WorkflowExecutionInfo describe(
+        TestWorkflowEnvironment testEnvironment,
+        WorkflowExecution execution
+    ) {
+        DescribeWorkflowExecutionRequest request = DescribeWorkflowExecutionRequest
+            .newBuilder()
+            .setNamespace(testEnvironment.getNamespace())
+            .setExecution(execution)
+            .build();
+
+        return testEnvironment
+            .getWorkflowService()
+            .blockingStub()
+            .describeWorkflowExecution(request)
+            .getWorkflowExecutionInfo();
+    }
+
+    private static void report(
+        int workflows,
+        int capacity,
+        Duration taskDelay,
+        Duration sheetsLatency,
+        Result result,
+        Map<UUID, String> notifiedSeats,
+        Map<String, String> spreadsheetIds,
+        FakeGoogleSheetsServer sheetsServer,
+        MeterRegistry meterRegistry
+    ) {
+        // Seat numbers are per route, the same seat on two routes is not overbooking
+        Set<String> distinctSeats = new HashSet<>();
+        int duplicatedSeats = 0;
+        int seatsOverCapacity = 0;
+        for (Map.Entry<UUID, String> notifiedSeat : notifiedSeats.entrySet()) {
+            String route = result.processRoutes().get(notifiedSeat.getKey());
+            if (!distinctSeats.add(route + "/" + notifiedSeat.getValue())) {
+                duplicatedSeats++;
+            }
+            if (Integer.parseInt(notifiedSeat.getValue()) > capacity) {
+                seatsOverCapacity++;
+            }
+        }
+        int rowsOverCapacity = 0;
+        for (String spreadsheetId : spreadsheetIds.values()) {
+            rowsOverCapacity += Math.max(sheetsServer.getReservationCount(spreadsheetId) - capacity, 0);
+        }
+        DistributionSummary batchSize = meterRegistry.find("gsheets.append.batch.size").summary();
+
+        System.out.printf(
+            "workflows=%d routes=%s capacity=%d per route taskDelay=%dms sheetsLatency=%dms%n",
+            workflows,
+            spreadsheetIds.keySet(),
+            capacity,
+            taskDelay.toMillis(),
+            sheetsLatency.toMillis()
+        );
+        System.out.printf(
+            "throughput=%.1f workflows/s p50=%dms p99=%dms max=%dms failed=%d%n",
+            workflows / (result.elapsedNanos() / 1e9),
+            result.percentileMillis(0.50),
+            result.percentileMillis(0.99),
+            result.percentileMillis(1.0),
+            result.failed()
+        );
+        System.out.printf(
+            "seatsGranted=%d rowsWritten=%d duplicatedSeats=%d seatsOverCapacity=%d rowsOverCapacity=%d%n",
+            notifiedSeats.size(),
+            sheetsServer.getReservationCount(),
+            duplicatedSeats,
+            seatsOverCapacity,
+            rowsOverCapacity
+        );
+        System.out.printf(
+            "sheetsReads=%d sheetsAppends=%d sheetsThrottled=%d meanAppendBatch=%.1f%n",
+            sheetsServer.getReadRequests(),
+            sheetsServer.getAppendRequests(),
+            sheetsServer.getThrottledRequests(),
+            batchSize == null ? 0.0 : batchSize.mean()
+        );
+    }
+
+    /**
+     * The KuFlow worker runs every reservation at once, and the task activities block until the task is finished.
+     */
+    private static WorkerOptions createWorkerOptions(int workflows) {
+        return WorkerOptions
+            .newBuilder()
+            .setMaxConcurrentActivityExecutionSize(workflows)
+            .setMaxConcurrentWorkflowTaskExecutionSize(workflows)
+            .setMaxConcurrentWorkflowTaskPollers(4)
+            .setMaxConcurrentActivityTaskPollers(8)
+            .build();
+    }
+
+    private static WorkerOptions createWorkerOptions(WorkerProperties worker) {
+        return WorkerOptions
+            .newBuilder()
+            .setMaxConcurrentActivityExecutionSize(worker.getMaxConcurrentActivityExecutionSize())
+            .setMaxConcurrentWorkflowTaskExecutionSize(worker.getMaxConcurrentWorkflowTaskExecutionSize())
+            .setMaxConcurrentLocalActivityExecutionSize(worker.getMaxConcurrentLocalActivityExecutionSize())
+            .setMaxConcurrentWorkflowTaskPollers(worker.getMaxConcurrentWorkflowTaskPollers())
+            .setMaxConcurrentActivityTaskPollers(worker.getMaxConcurrentActivityTaskPollers())
+            .build();
+    }
+
+    private record Result(long elapsedNanos, long[] sortedLatencies, int failed, Map<UUID, String> processRoutes) {
+        long percentileMillis(double percentile) {
+            if (this.sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * this.sortedLatencies.length) - 1;
+
+            return TimeUnit.NANOSECONDS.toMillis(this.sortedLatencies[Math.max(index, 0)]);
+        }
+    }
+}
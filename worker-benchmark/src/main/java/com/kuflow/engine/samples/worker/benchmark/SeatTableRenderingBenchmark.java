@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.activity.GSheetsActivitiesImpl;
+import com.kuflow.engine.samples.worker.activity.SeatTableRenderer;
+import com.kuflow.engine.samples.worker.seat.InMemorySeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders the seats table shown in the reservation form, reading it from the in-memory seat store, and a seat map of
+ * {@code rows} passengers on its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatTableRenderingBenchmark {
+
+    private GSheetsActivitiesImpl gSheetsActivities;
+
+    @Setup
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        InMemorySeatStore seatStore = new InMemorySeatStore(applicationProperties.getSeats());
+
+        this.gSheetsActivities = new GSheetsActivitiesImpl(seatStore, new SeatLedger(applicationProperties));
+    }
+
+    @Benchmark
+    public List<String> readSheet() {
+        return this.gSheetsActivities.readSheet();
+    }
+
+    @Benchmark
+    public String renderSeatMap(SeatMap seatMap) {
+        return SeatTableRenderer.render(seatMap.values);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SeatMap {
+
+        @Param({ "100", "5000" })
+        public int rows;
+
+        private List<List<Object>> values;
+
+        @Setup
+        public void setUp() {
+            this.values = new ArrayList<>(this.rows);
+            for (int row = 1; row <= this.rows; row++) {
+                this.values.add(List.of("Passenger " + row, "Surname " + row, "passenger" + row + "@example.com", row));
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.RateLimitProperties;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsConfiguration;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsCredentialProvider;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the Sheets client and executes a {@code values.get} request through it. The HTTP transport is a local fake,
+ * and the credential is loaded from a token stored in a temporary directory, so no request leaves the JVM.
+ *
+ * <p>{@code newCredentialAndClient} is the path followed by every Sheets call when the credential and the client were
+ * created per call, {@code sharedCredentialAndClient} the path followed since they are shared. The requests go through
+ * the rate limiter, with a quota high enough for them never to wait.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SheetsClientBenchmark {
+
+    private static final String VALUES_RESPONSE = """
+        {"range": "BUS!D2", "majorDimension": "ROWS", "values": [["112"]]}
+        """;
+
+    private ApplicationProperties applicationProperties;
+
+    private GoogleSheetsConfiguration googleSheetsConfiguration;
+
+    private HttpTransport httpTransport;
+
+    private GoogleSheetsCredentialProvider sharedCredentialProvider;
+
+    private GoogleSheetsRateLimiter sharedRateLimiter;
+
+    private Sheets sharedSheets;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.applicationProperties = new ApplicationProperties();
+        FakeGoogleCredentials.configure(this.applicationProperties.getGoogleSheets());
+        RateLimitProperties rateLimit = this.applicationProperties.getGoogleSheets().getRateLimit();
+        rateLimit.setReadRequestsPerMinute(Integer.MAX_VALUE);
+        rateLimit.setBurst(Integer.MAX_VALUE);
+
+        this.httpTransport =
+            new MockHttpTransport() {
+                @Override
+                public LowLevelHttpRequest buildRequest(String method, String url) {
+                    return new MockLowLevelHttpRequest(url) {
+                        @Override
+                        public LowLevelHttpResponse execute() {
+                            return new MockLowLevelHttpResponse()
+                                .setContentType(Json.MEDIA_TYPE)
+                                .setContent(VALUES_RESPONSE);
+                        }
+                    };
+                }
+            };
+
+        this.googleSheetsConfiguration = new GoogleSheetsConfiguration(this.applicationProperties);
+        this.sharedCredentialProvider =
+            new GoogleSheetsCredentialProvider(this.applicationProperties, this.httpTransport);
+        this.sharedCredentialProvider.getCredential();
+        this.sharedRateLimiter = this.createRateLimiter(this.sharedCredentialProvider);
+        this.sharedSheets = this.googleSheetsConfiguration.sheets(this.httpTransport, this.sharedRateLimiter);
+    }
+
+    @Benchmark
+    public Sheets newCredentialAndClient() throws IOException {
+        GoogleSheetsCredentialProvider credentialProvider = new GoogleSheetsCredentialProvider(
+            this.applicationProperties,
+            this.httpTransport
+        );
+        credentialProvider.getCredential();
+
+        return this.googleSheetsConfiguration.sheets(this.httpTransport, this.createRateLimiter(credentialProvider));
+    }
+
+    @Benchmark
+    public Sheets sharedCredentialAndClient() {
+        return this.googleSheetsConfiguration.sheets(this.httpTransport, this.sharedRateLimiter);
+    }
+
+    @Benchmark
+    public ValueRange valuesGet() throws IOException {
+        String spreadsheetId = this.applicationProperties.getGoogleSheets().getSpreadsheetId();
+
+        return this.sharedSheets.spreadsheets().values().get(spreadsheetId, "BUS!D2").execute();
+    }
+
+    private GoogleSheetsRateLimiter createRateLimiter(GoogleSheetsCredentialProvider credentialProvider) {
+        return new GoogleSheetsRateLimiter(this.applicationProperties, credentialProvider, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.benchmark;
+
+import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.SampleWorkflow;
+import com.kuflow.engine.samples.worker.SampleWorkflowImpl;
+import com.kuflow.engine.samples.worker.activity.GSheetsActivitiesImpl;
+import com.kuflow.engine.samples.worker.seat.InMemorySeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.internal.common.WorkflowExecutionHistory;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays a complete reservation of {@link SampleWorkflowImpl}, which executes all its workflow tasks without any
+ * remote call. The history is recorded once against the in-process Temporal test server, with KuFlow faked and the
+ * seats kept in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowReplayBenchmark {
+
+    private static final String KUFLOW_QUEUE = "benchmark";
+
+    private static final String GOOGLE_SHEETS_QUEUE = "benchmark-gsheets";
+
+    private TestWorkflowEnvironment testEnvironment;
+
+    private Worker worker;
+
+    private WorkflowExecutionHistory history;
+
+    @Setup
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        SeatLedger seatLedger = new SeatLedger(applicationProperties);
+        seatLedger.reconcile(0);
+        GSheetsActivitiesImpl gSheetsActivities = new GSheetsActivitiesImpl(
+            new InMemorySeatStore(applicationProperties.getSeats()),
+            seatLedger
+        );
+
+        this.testEnvironment = TestWorkflowEnvironment.newInstance();
+        this.worker = this.testEnvironment.newWorker(KUFLOW_QUEUE);
+        this.worker.addWorkflowImplementationFactory(
+            SampleWorkflow.class,
+            () -> new SampleWorkflowImpl(GOOGLE_SHEETS_QUEUE)
+        );
+        this.worker.registerActivitiesImplementations(FakeKuFlowActivities.newInstance());
+        this.testEnvironment.newWorker(GOOGLE_SHEETS_QUEUE).registerActivitiesImplementations(gSheetsActivities);
+        this.testEnvironment.start();
+
+        String workflowId = UUID.randomUUID().toString();
+        WorkflowOptions workflowOptions = WorkflowOptions
+            .newBuilder()
+            .setTaskQueue(KUFLOW_QUEUE)
+            .setWorkflowId(workflowId)
+            .build();
+        SampleWorkflow workflow = this.testEnvironment
+            .getWorkflowClient()
+            .newWorkflowStub(SampleWorkflow.class, workflowOptions);
+        WorkflowRequestResource request = new WorkflowRequestResource();
+        request.setProcessId(UUID.randomUUID());
+        workflow.runWorkflow(request);
+
+        GetWorkflowExecutionHistoryRequest historyRequest = GetWorkflowExecutionHistoryRequest
+            .newBuilder()
+            .setNamespace(this.testEnvironment.getNamespace())
+            .setExecution(WorkflowExecution.newBuilder().setWorkflowId(workflowId))
+            .build();
+        GetWorkflowExecutionHistoryResponse historyResponse = this.testEnvironment
+            .getWorkflowService()
+            .blockingStub()
+            .getWorkflowExecutionHistory(historyRequest);
+        this.history = new WorkflowExecutionHistory(historyResponse.getHistory());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.testEnvironment.close();
+    }
+
+    @Benchmark
+    public void replayWorkflowExecution() throws Exception {
+        this.worker.replayWorkflowExecution(this.history);
+    }
+}
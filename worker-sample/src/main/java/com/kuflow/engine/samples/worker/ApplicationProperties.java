@@ -7,9 +7,20 @@
 package com.kuflow.engine.samples.worker;
 
 import com.kuflow.engine.client.common.validation.NotFillMeAttributesValues;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 @Validated
@@ -19,10 +30,52 @@ public class ApplicationProperties {
     @Valid
     private final TemporalProperties temporal = new TemporalProperties();
 
+    @Valid
+    private final GoogleSheetsProperties googleSheets = new GoogleSheetsProperties();
+
+    @Valid
+    private final SeatsProperties seats = new SeatsProperties();
+
+    /**
+     * Bus routes by route key, each one with its own spreadsheet, seats and Google Sheets task queue. Reservations
+     * without a route use the spreadsheet and seats configured in {@code google-sheets} and {@code seats}.
+     */
+    @Valid
+    private final Map<String, RouteProperties> routes = new LinkedHashMap<>();
+
     public TemporalProperties getTemporal() {
         return this.temporal;
     }
 
+    public GoogleSheetsProperties getGoogleSheets() {
+        return this.googleSheets;
+    }
+
+    public SeatsProperties getSeats() {
+        return this.seats;
+    }
+
+    public Map<String, RouteProperties> getRoutes() {
+        return this.routes;
+    }
+
+    @AssertTrue(message = "temporal.googleSheetsRoutes must be keys of routes")
+    public boolean isGoogleSheetsRoutesConfigured() {
+        return this.routes.keySet().containsAll(this.temporal.getGoogleSheetsRoutes());
+    }
+
+    @AssertTrue(message = "temporal.waitlist requires googleSheets.changeWatcher to be enabled")
+    public boolean isWaitlistConfigured() {
+        return !this.temporal.getWaitlist().isEnabled() || this.googleSheets.getChangeWatcher().isEnabled();
+    }
+
+    /**
+     * The tasks repeated with a fixed delay are rejected by their scheduler when the delay is zero or negative.
+     */
+    private static boolean isPositive(Duration duration) {
+        return duration == null || (!duration.isNegative() && !duration.isZero());
+    }
+
     @NotFillMeAttributesValues
     public static final class TemporalProperties {
 
@@ -32,15 +85,80 @@ public class ApplicationProperties {
         @NotBlank
         private String kuflowQueue;
 
+        /**
+         * Task queue of the Google Sheets activities, by default the KuFlow queue followed by "-gsheets".
+         */
+        private String googleSheetsQueue;
+
         @NotBlank
         private String target;
 
+        /**
+         * Workers started by this process.
+         */
+        @NotEmpty
+        private Set<WorkerType> workers = EnumSet.allOf(WorkerType.class);
+
         private MutualTlsProperties mutualTls = new MutualTlsProperties();
 
+        @Valid
+        private WorkerProperties worker = new WorkerProperties();
+
+        @Valid
+        private WorkerProperties googleSheetsWorker = new WorkerProperties();
+
+        /**
+         * Routes whose Google Sheets activities are run by this process, all the routes when empty.
+         */
+        private Set<String> googleSheetsRoutes = new LinkedHashSet<>();
+
+        @Valid
+        private WorkerFactoryProperties workerFactory = new WorkerFactoryProperties();
+
+        @Valid
+        private LocalReadsProperties localReads = new LocalReadsProperties();
+
+        @Valid
+        private GoogleSheetsActivitiesProperties googleSheetsActivities = new GoogleSheetsActivitiesProperties();
+
+        @Valid
+        private WaitlistProperties waitlist = new WaitlistProperties();
+
+        @Valid
+        private PayloadsProperties payloads = new PayloadsProperties();
+
         public MutualTlsProperties getMutualTls() {
             return this.mutualTls;
         }
 
+        public WorkerProperties getWorker() {
+            return this.worker;
+        }
+
+        public WorkerProperties getGoogleSheetsWorker() {
+            return this.googleSheetsWorker;
+        }
+
+        public WorkerFactoryProperties getWorkerFactory() {
+            return this.workerFactory;
+        }
+
+        public LocalReadsProperties getLocalReads() {
+            return this.localReads;
+        }
+
+        public GoogleSheetsActivitiesProperties getGoogleSheetsActivities() {
+            return this.googleSheetsActivities;
+        }
+
+        public WaitlistProperties getWaitlist() {
+            return this.waitlist;
+        }
+
+        public PayloadsProperties getPayloads() {
+            return this.payloads;
+        }
+
         public String getNamespace() {
             return this.namespace;
         }
@@ -65,6 +183,42 @@ public class ApplicationProperties {
             this.kuflowQueue = kuflowQueue;
         }
 
+        public String getGoogleSheetsQueue() {
+            return this.googleSheetsQueue;
+        }
+
+        public void setGoogleSheetsQueue(String googleSheetsQueue) {
+            this.googleSheetsQueue = googleSheetsQueue;
+        }
+
+        public Set<WorkerType> getWorkers() {
+            return this.workers;
+        }
+
+        public void setWorkers(Set<WorkerType> workers) {
+            this.workers = workers;
+        }
+
+        public Set<String> getGoogleSheetsRoutes() {
+            return this.googleSheetsRoutes;
+        }
+
+        public void setGoogleSheetsRoutes(Set<String> googleSheetsRoutes) {
+            this.googleSheetsRoutes = googleSheetsRoutes;
+        }
+
+        public enum WorkerType {
+            /**
+             * Runs the workflows and the KuFlow activities on the KuFlow queue.
+             */
+            KUFLOW,
+
+            /**
+             * Runs the Google Sheets activities on their own queue.
+             */
+            GOOGLE_SHEETS,
+        }
+
         @NotFillMeAttributesValues
         public static final class MutualTlsProperties {
 
@@ -128,5 +282,1198 @@ public class ApplicationProperties {
                 this.keyData = keyData;
             }
         }
+
+        @NotFillMeAttributesValues
+        public static final class WorkerProperties {
+
+            /**
+             * Activities executed in parallel by the worker.
+             */
+            @Min(1)
+            private int maxConcurrentActivityExecutionSize = 200;
+
+            /**
+             * Workflow tasks executed in parallel by the worker.
+             */
+            @Min(1)
+            private int maxConcurrentWorkflowTaskExecutionSize = 200;
+
+            /**
+             * Local activities executed in parallel by the worker.
+             */
+            @Min(1)
+            private int maxConcurrentLocalActivityExecutionSize = 200;
+
+            /**
+             * Threads polling the task queue for workflow tasks.
+             */
+            @Min(1)
+            private int maxConcurrentWorkflowTaskPollers = 2;
+
+            /**
+             * Threads polling the task queue for activity tasks.
+             */
+            @Min(1)
+            private int maxConcurrentActivityTaskPollers = 5;
+
+            public int getMaxConcurrentActivityExecutionSize() {
+                return this.maxConcurrentActivityExecutionSize;
+            }
+
+            public void setMaxConcurrentActivityExecutionSize(int maxConcurrentActivityExecutionSize) {
+                this.maxConcurrentActivityExecutionSize = maxConcurrentActivityExecutionSize;
+            }
+
+            public int getMaxConcurrentWorkflowTaskExecutionSize() {
+                return this.maxConcurrentWorkflowTaskExecutionSize;
+            }
+
+            public void setMaxConcurrentWorkflowTaskExecutionSize(int maxConcurrentWorkflowTaskExecutionSize) {
+                this.maxConcurrentWorkflowTaskExecutionSize = maxConcurrentWorkflowTaskExecutionSize;
+            }
+
+            public int getMaxConcurrentLocalActivityExecutionSize() {
+                return this.maxConcurrentLocalActivityExecutionSize;
+            }
+
+            public void setMaxConcurrentLocalActivityExecutionSize(int maxConcurrentLocalActivityExecutionSize) {
+                this.maxConcurrentLocalActivityExecutionSize = maxConcurrentLocalActivityExecutionSize;
+            }
+
+            public int getMaxConcurrentWorkflowTaskPollers() {
+                return this.maxConcurrentWorkflowTaskPollers;
+            }
+
+            public void setMaxConcurrentWorkflowTaskPollers(int maxConcurrentWorkflowTaskPollers) {
+                this.maxConcurrentWorkflowTaskPollers = maxConcurrentWorkflowTaskPollers;
+            }
+
+            public int getMaxConcurrentActivityTaskPollers() {
+                return this.maxConcurrentActivityTaskPollers;
+            }
+
+            public void setMaxConcurrentActivityTaskPollers(int maxConcurrentActivityTaskPollers) {
+                this.maxConcurrentActivityTaskPollers = maxConcurrentActivityTaskPollers;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class WorkerFactoryProperties {
+
+            /**
+             * Workflow executions kept in memory between workflow tasks (sticky cache).
+             */
+            @Min(1)
+            private int workflowCacheSize = 600;
+
+            /**
+             * Max number of threads used by the cached workflow executions.
+             */
+            @Min(1)
+            private int maxWorkflowThreadCount = 600;
+
+            public int getWorkflowCacheSize() {
+                return this.workflowCacheSize;
+            }
+
+            public void setWorkflowCacheSize(int workflowCacheSize) {
+                this.workflowCacheSize = workflowCacheSize;
+            }
+
+            public int getMaxWorkflowThreadCount() {
+                return this.maxWorkflowThreadCount;
+            }
+
+            public void setMaxWorkflowThreadCount(int maxWorkflowThreadCount) {
+                this.maxWorkflowThreadCount = maxWorkflowThreadCount;
+            }
+
+            /**
+             * Every cached workflow execution holds at least one thread, a bigger cache would be evicted constantly.
+             */
+            @AssertTrue(message = "workflowCacheSize must not be greater than maxWorkflowThreadCount")
+            public boolean isWorkflowCacheSizeWithinThreadCount() {
+                return this.workflowCacheSize <= this.maxWorkflowThreadCount;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class LocalReadsProperties {
+
+            /**
+             * Run the read-only Google Sheets activities as local activities of the KuFlow worker.
+             */
+            private boolean enabled = false;
+
+            @NotNull
+            private Duration startToCloseTimeout = Duration.ofSeconds(5);
+
+            @NotNull
+            private Duration scheduleToCloseTimeout = Duration.ofSeconds(30);
+
+            /**
+             * Retries waiting longer than this are scheduled with a workflow timer instead of in the worker.
+             */
+            @NotNull
+            private Duration localRetryThreshold = Duration.ofSeconds(10);
+
+            @NotNull
+            private Duration initialRetryInterval = Duration.ofMillis(200);
+
+            @Min(1)
+            private int maximumAttempts = 5;
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getStartToCloseTimeout() {
+                return this.startToCloseTimeout;
+            }
+
+            public void setStartToCloseTimeout(Duration startToCloseTimeout) {
+                this.startToCloseTimeout = startToCloseTimeout;
+            }
+
+            public Duration getScheduleToCloseTimeout() {
+                return this.scheduleToCloseTimeout;
+            }
+
+            public void setScheduleToCloseTimeout(Duration scheduleToCloseTimeout) {
+                this.scheduleToCloseTimeout = scheduleToCloseTimeout;
+            }
+
+            public Duration getLocalRetryThreshold() {
+                return this.localRetryThreshold;
+            }
+
+            public void setLocalRetryThreshold(Duration localRetryThreshold) {
+                this.localRetryThreshold = localRetryThreshold;
+            }
+
+            public Duration getInitialRetryInterval() {
+                return this.initialRetryInterval;
+            }
+
+            public void setInitialRetryInterval(Duration initialRetryInterval) {
+                this.initialRetryInterval = initialRetryInterval;
+            }
+
+            public int getMaximumAttempts() {
+                return this.maximumAttempts;
+            }
+
+            public void setMaximumAttempts(int maximumAttempts) {
+                this.maximumAttempts = maximumAttempts;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class GoogleSheetsActivitiesProperties {
+
+            /**
+             * Options of the activities that only read the spreadsheet: readSheet, getCellValue, getSeatNo and
+             * getSeatInventory.
+             */
+            @Valid
+            private ActivityProfileProperties read = new ActivityProfileProperties(Duration.ofSeconds(20), null);
+
+            /**
+             * Options of the activities that write to the spreadsheet: writeSheet and reserveSeat. They wait for the
+             * rows written at the same time to be appended together, so they heartbeat meanwhile.
+             */
+            @Valid
+            private ActivityProfileProperties write = new ActivityProfileProperties(
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(10)
+            );
+
+            /**
+             * Options of single activities by method name, e.g. {@code getSeatInventory}, instead of those of their
+             * profile.
+             */
+            @Valid
+            private Map<String, ActivityProfileProperties> methods = new LinkedHashMap<>();
+
+            public ActivityProfileProperties getRead() {
+                return this.read;
+            }
+
+            public ActivityProfileProperties getWrite() {
+                return this.write;
+            }
+
+            public Map<String, ActivityProfileProperties> getMethods() {
+                return this.methods;
+            }
+
+            @NotFillMeAttributesValues
+            public static final class ActivityProfileProperties {
+
+                /**
+                 * Max duration of a single attempt.
+                 */
+                @NotNull
+                private Duration startToCloseTimeout;
+
+                /**
+                 * Max duration of all the attempts together.
+                 */
+                @NotNull
+                private Duration scheduleToCloseTimeout = Duration.ofHours(1);
+
+                /**
+                 * Max time between two heartbeats of an attempt, no heartbeats when not set. The worker heartbeats
+                 * on behalf of the activity while it runs.
+                 */
+                private Duration heartbeatTimeout;
+
+                @NotNull
+                private Duration initialRetryInterval = Duration.ofSeconds(1);
+
+                @NotNull
+                private Duration maximumRetryInterval = Duration.ofSeconds(10);
+
+                /**
+                 * Max number of attempts, unlimited within the schedule to close timeout when 0.
+                 */
+                @Min(0)
+                private int maximumAttempts = 0;
+
+                public ActivityProfileProperties() {
+                    this(Duration.ofSeconds(20), null);
+                }
+
+                ActivityProfileProperties(Duration startToCloseTimeout, Duration heartbeatTimeout) {
+                    this.startToCloseTimeout = startToCloseTimeout;
+                    this.heartbeatTimeout = heartbeatTimeout;
+                }
+
+                public Duration getStartToCloseTimeout() {
+                    return this.startToCloseTimeout;
+                }
+
+                public void setStartToCloseTimeout(Duration startToCloseTimeout) {
+                    this.startToCloseTimeout = startToCloseTimeout;
+                }
+
+                public Duration getScheduleToCloseTimeout() {
+                    return this.scheduleToCloseTimeout;
+                }
+
+                public void setScheduleToCloseTimeout(Duration scheduleToCloseTimeout) {
+                    this.scheduleToCloseTimeout = scheduleToCloseTimeout;
+                }
+
+                public Duration getHeartbeatTimeout() {
+                    return this.heartbeatTimeout;
+                }
+
+                public void setHeartbeatTimeout(Duration heartbeatTimeout) {
+                    this.heartbeatTimeout = heartbeatTimeout;
+                }
+
+                public Duration getInitialRetryInterval() {
+                    return this.initialRetryInterval;
+                }
+
+                public void setInitialRetryInterval(Duration initialRetryInterval) {
+                    this.initialRetryInterval = initialRetryInterval;
+                }
+
+                public Duration getMaximumRetryInterval() {
+                    return this.maximumRetryInterval;
+                }
+
+                public void setMaximumRetryInterval(Duration maximumRetryInterval) {
+                    this.maximumRetryInterval = maximumRetryInterval;
+                }
+
+                public int getMaximumAttempts() {
+                    return this.maximumAttempts;
+                }
+
+                public void setMaximumAttempts(int maximumAttempts) {
+                    this.maximumAttempts = maximumAttempts;
+                }
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class WaitlistProperties {
+
+            /**
+             * Park the reservations that find no seats available until a seat is released, instead of notifying
+             * that there are no seats.
+             */
+            private boolean enabled = false;
+
+            /**
+             * How long a reservation waits for a seat before being notified that there are no seats.
+             */
+            @NotNull
+            private Duration timeout = Duration.ofDays(1);
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTimeout() {
+                return this.timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class PayloadsProperties {
+
+            /**
+             * Encoding of the workflow and activity arguments and results written to the history. Payloads written
+             * with any encoding are always readable.
+             */
+            @NotNull
+            private PayloadEncoding encoding = PayloadEncoding.JSON;
+
+            /**
+             * Compress the payloads of at least {@code compression-threshold}.
+             */
+            private boolean compressionEnabled = false;
+
+            @NotNull
+            private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+
+            @Valid
+            private ClaimCheckProperties claimCheck = new ClaimCheckProperties();
+
+            public PayloadEncoding getEncoding() {
+                return this.encoding;
+            }
+
+            public void setEncoding(PayloadEncoding encoding) {
+                this.encoding = encoding;
+            }
+
+            public boolean isCompressionEnabled() {
+                return this.compressionEnabled;
+            }
+
+            public void setCompressionEnabled(boolean compressionEnabled) {
+                this.compressionEnabled = compressionEnabled;
+            }
+
+            public DataSize getCompressionThreshold() {
+                return this.compressionThreshold;
+            }
+
+            public void setCompressionThreshold(DataSize compressionThreshold) {
+                this.compressionThreshold = compressionThreshold;
+            }
+
+            public ClaimCheckProperties getClaimCheck() {
+                return this.claimCheck;
+            }
+
+            public enum PayloadEncoding {
+                /**
+                 * JSON, as the Temporal SDK default.
+                 */
+                JSON,
+
+                /**
+                 * Smile, the binary JSON format of Jackson.
+                 */
+                SMILE,
+            }
+
+            @NotFillMeAttributesValues
+            public static final class ClaimCheckProperties {
+
+                /**
+                 * Move the payloads of at least {@code threshold}, once compressed, out of the history to the payload
+                 * store, keeping only a reference to them.
+                 */
+                private boolean enabled = false;
+
+                @NotNull
+                private DataSize threshold = DataSize.ofKilobytes(128);
+
+                /**
+                 * Directory of the payload store, such as a network volume. Required when the claim check is
+                 * enabled, and it must be the same directory for all the workers that run the workflows and the
+                 * activities, in this process or on another host.
+                 */
+                private String directory;
+
+                /**
+                 * How long the payloads are kept since they were last stored or read. It can't be less than the
+                 * longest reservation plus the retention of the closed workflows of the namespace, read from Temporal
+                 * on start, which is the default.
+                 */
+                private Duration retention;
+
+                /**
+                 * How often the expired payloads are deleted.
+                 */
+                @NotNull
+                private Duration cleanupInterval = Duration.ofHours(1);
+
+                /**
+                 * Total size of the payloads kept in memory once stored or read.
+                 */
+                @NotNull
+                private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+
+                @NotNull
+                private Duration cacheTtl = Duration.ofMinutes(10);
+
+                public boolean isEnabled() {
+                    return this.enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public DataSize getThreshold() {
+                    return this.threshold;
+                }
+
+                public void setThreshold(DataSize threshold) {
+                    this.threshold = threshold;
+                }
+
+                public String getDirectory() {
+                    return this.directory;
+                }
+
+                public void setDirectory(String directory) {
+                    this.directory = directory;
+                }
+
+                public Duration getRetention() {
+                    return this.retention;
+                }
+
+                public void setRetention(Duration retention) {
+                    this.retention = retention;
+                }
+
+                public Duration getCleanupInterval() {
+                    return this.cleanupInterval;
+                }
+
+                public void setCleanupInterval(Duration cleanupInterval) {
+                    this.cleanupInterval = cleanupInterval;
+                }
+
+                @AssertTrue(message = "cleanupInterval must be positive")
+                public boolean isCleanupIntervalPositive() {
+                    return isPositive(this.cleanupInterval);
+                }
+
+                public DataSize getCacheMaxSize() {
+                    return this.cacheMaxSize;
+                }
+
+                public void setCacheMaxSize(DataSize cacheMaxSize) {
+                    this.cacheMaxSize = cacheMaxSize;
+                }
+
+                public Duration getCacheTtl() {
+                    return this.cacheTtl;
+                }
+
+                public void setCacheTtl(Duration cacheTtl) {
+                    this.cacheTtl = cacheTtl;
+                }
+            }
+        }
+    }
+
+    @NotFillMeAttributesValues
+    public static final class GoogleSheetsProperties {
+
+        @NotBlank
+        private String applicationName = "Google Sheets API Java Quickstart";
+
+        @NotBlank
+        private String spreadsheetId = "1N4TzejQ4pjEdb2IJbvah8pnoHx1TWYKn_jP6h42-jHE";
+
+        @NotBlank
+        private String sheetName = "BUS";
+
+        @NotBlank
+        private String credentialsFile = "/credentials.json";
+
+        @NotBlank
+        private String tokensDirectory = "tokens";
+
+        /**
+         * Kind of credential held in {@code credentials-file}.
+         */
+        @NotNull
+        private CredentialType credentialType = CredentialType.INSTALLED_APP;
+
+        /**
+         * When no tokens are stored for an {@code INSTALLED_APP} credential, ask the user to authorize the worker in
+         * the browser, waiting on port 8888, as on the first run on a desktop. Disable it on servers, so the worker
+         * fails to start instead of blocking until someone authorizes it.
+         */
+        private boolean interactiveAuthorization = true;
+
+        @Valid
+        private CredentialRefreshProperties credentialRefresh = new CredentialRefreshProperties();
+
+        @Valid
+        private HttpProperties http = new HttpProperties();
+
+        @Valid
+        private CacheProperties cache = new CacheProperties();
+
+        @Valid
+        private AppendProperties append = new AppendProperties();
+
+        @Valid
+        private AsyncCompletionProperties asyncCompletion = new AsyncCompletionProperties();
+
+        @Valid
+        private RateLimitProperties rateLimit = new RateLimitProperties();
+
+        @Valid
+        private ChangeWatcherProperties changeWatcher = new ChangeWatcherProperties();
+
+        public String getApplicationName() {
+            return this.applicationName;
+        }
+
+        public void setApplicationName(String applicationName) {
+            this.applicationName = applicationName;
+        }
+
+        public String getSpreadsheetId() {
+            return this.spreadsheetId;
+        }
+
+        public void setSpreadsheetId(String spreadsheetId) {
+            this.spreadsheetId = spreadsheetId;
+        }
+
+        public String getSheetName() {
+            return this.sheetName;
+        }
+
+        public void setSheetName(String sheetName) {
+            this.sheetName = sheetName;
+        }
+
+        public String getCredentialsFile() {
+            return this.credentialsFile;
+        }
+
+        public void setCredentialsFile(String credentialsFile) {
+            this.credentialsFile = credentialsFile;
+        }
+
+        public String getTokensDirectory() {
+            return this.tokensDirectory;
+        }
+
+        public void setTokensDirectory(String tokensDirectory) {
+            this.tokensDirectory = tokensDirectory;
+        }
+
+        public CredentialType getCredentialType() {
+            return this.credentialType;
+        }
+
+        public void setCredentialType(CredentialType credentialType) {
+            this.credentialType = credentialType;
+        }
+
+        public boolean isInteractiveAuthorization() {
+            return this.interactiveAuthorization;
+        }
+
+        public void setInteractiveAuthorization(boolean interactiveAuthorization) {
+            this.interactiveAuthorization = interactiveAuthorization;
+        }
+
+        public CredentialRefreshProperties getCredentialRefresh() {
+            return this.credentialRefresh;
+        }
+
+        public HttpProperties getHttp() {
+            return this.http;
+        }
+
+        public CacheProperties getCache() {
+            return this.cache;
+        }
+
+        public AppendProperties getAppend() {
+            return this.append;
+        }
+
+        public AsyncCompletionProperties getAsyncCompletion() {
+            return this.asyncCompletion;
+        }
+
+        public RateLimitProperties getRateLimit() {
+            return this.rateLimit;
+        }
+
+        public ChangeWatcherProperties getChangeWatcher() {
+            return this.changeWatcher;
+        }
+
+        public enum CredentialType {
+            /**
+             * OAuth client of an installed application, authorized once by a user. The tokens are kept in
+             * {@code tokens-directory}.
+             */
+            INSTALLED_APP,
+
+            /**
+             * Service account key, never interactive. The spreadsheets must be shared with the service account.
+             */
+            SERVICE_ACCOUNT,
+        }
+
+        @NotFillMeAttributesValues
+        public static final class HttpProperties {
+
+            /**
+             * Max number of pooled connections to the Google Sheets API.
+             */
+            @Min(1)
+            private int maxConnections = 20;
+
+            /**
+             * How long an idle connection is kept in the pool before being closed.
+             */
+            @NotNull
+            private Duration keepAlive = Duration.ofSeconds(30);
+
+            /**
+             * Max time to establish a connection to the Google Sheets API.
+             */
+            @NotNull
+            private Duration connectTimeout = Duration.ofSeconds(3);
+
+            /**
+             * Max time without receiving data from the Google Sheets API once the request has been sent.
+             */
+            @NotNull
+            private Duration readTimeout = Duration.ofSeconds(10);
+
+            public int getMaxConnections() {
+                return this.maxConnections;
+            }
+
+            public void setMaxConnections(int maxConnections) {
+                this.maxConnections = maxConnections;
+            }
+
+            public Duration getKeepAlive() {
+                return this.keepAlive;
+            }
+
+            public void setKeepAlive(Duration keepAlive) {
+                this.keepAlive = keepAlive;
+            }
+
+            public Duration getConnectTimeout() {
+                return this.connectTimeout;
+            }
+
+            public void setConnectTimeout(Duration connectTimeout) {
+                this.connectTimeout = connectTimeout;
+            }
+
+            public Duration getReadTimeout() {
+                return this.readTimeout;
+            }
+
+            public void setReadTimeout(Duration readTimeout) {
+                this.readTimeout = readTimeout;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class CacheProperties {
+
+            private boolean enabled = true;
+
+            /**
+             * How long a read range is served from memory before being requested again.
+             */
+            @NotNull
+            private Duration ttl = Duration.ofSeconds(30);
+
+            /**
+             * Max number of ranges kept in memory.
+             */
+            @Min(1)
+            private long maxSize = 100;
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTtl() {
+                return this.ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public long getMaxSize() {
+                return this.maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class AppendProperties {
+
+            /**
+             * How long the rows written concurrently are buffered before being appended together.
+             */
+            @NotNull
+            private Duration window = Duration.ofMillis(100);
+
+            /**
+             * Max number of rows appended in a single request.
+             */
+            @Min(1)
+            private int maxBatchSize = 50;
+
+            public Duration getWindow() {
+                return this.window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxBatchSize() {
+                return this.maxBatchSize;
+            }
+
+            public void setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class AsyncCompletionProperties {
+
+            /**
+             * Release the activity executor slot while the Sheets call is in progress, completing the activity later.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Threads running the Sheets calls when the activities are completed asynchronously.
+             */
+            @Min(1)
+            private int ioThreads = 16;
+
+            /**
+             * Sheets calls in progress at most, queued for an I/O thread or running. Once reached, the next activities
+             * wait for a call to complete, holding their activity executor slot.
+             */
+            @Min(1)
+            private int maxCallsInProgress = 1_000;
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getIoThreads() {
+                return this.ioThreads;
+            }
+
+            public void setIoThreads(int ioThreads) {
+                this.ioThreads = ioThreads;
+            }
+
+            public int getMaxCallsInProgress() {
+                return this.maxCallsInProgress;
+            }
+
+            public void setMaxCallsInProgress(int maxCallsInProgress) {
+                this.maxCallsInProgress = maxCallsInProgress;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class CredentialRefreshProperties {
+
+            /**
+             * How often the access token expiration is checked.
+             */
+            @NotNull
+            private Duration interval = Duration.ofMinutes(1);
+
+            /**
+             * Access tokens expiring within this margin are renewed in the background, before any request needs it.
+             */
+            @NotNull
+            private Duration margin = Duration.ofMinutes(5);
+
+            public Duration getInterval() {
+                return this.interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            @AssertTrue(message = "interval must be positive")
+            public boolean isIntervalPositive() {
+                return isPositive(this.interval);
+            }
+
+            public Duration getMargin() {
+                return this.margin;
+            }
+
+            public void setMargin(Duration margin) {
+                this.margin = margin;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class RateLimitProperties {
+
+            private boolean enabled = true;
+
+            /**
+             * Read requests sent per minute by the worker, shared by all the activity threads. The Sheets API allows
+             * 300 read requests per minute per project by default.
+             */
+            @Min(1)
+            private int readRequestsPerMinute = 300;
+
+            /**
+             * Write requests sent per minute by the worker, shared by all the activity threads. The Sheets API allows
+             * 300 write requests per minute per project by default.
+             */
+            @Min(1)
+            private int writeRequestsPerMinute = 300;
+
+            /**
+             * Requests that can be sent at once after the worker has been idle.
+             */
+            @Min(1)
+            private int burst = 10;
+
+            /**
+             * Requests that would wait longer than this for their turn fail instead, so the activity is retried later
+             * by Temporal.
+             */
+            @NotNull
+            private Duration maxWait = Duration.ofSeconds(5);
+
+            /**
+             * Pause after the first 429 or 503 response, doubled on every consecutive one.
+             */
+            @NotNull
+            private Duration initialBackoff = Duration.ofSeconds(1);
+
+            /**
+             * Max pause after consecutive 429 or 503 responses.
+             */
+            @NotNull
+            private Duration maxBackoff = Duration.ofSeconds(32);
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getReadRequestsPerMinute() {
+                return this.readRequestsPerMinute;
+            }
+
+            public void setReadRequestsPerMinute(int readRequestsPerMinute) {
+                this.readRequestsPerMinute = readRequestsPerMinute;
+            }
+
+            public int getWriteRequestsPerMinute() {
+                return this.writeRequestsPerMinute;
+            }
+
+            public void setWriteRequestsPerMinute(int writeRequestsPerMinute) {
+                this.writeRequestsPerMinute = writeRequestsPerMinute;
+            }
+
+            public int getBurst() {
+                return this.burst;
+            }
+
+            public void setBurst(int burst) {
+                this.burst = burst;
+            }
+
+            public Duration getMaxWait() {
+                return this.maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+
+            public Duration getInitialBackoff() {
+                return this.initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public Duration getMaxBackoff() {
+                return this.maxBackoff;
+            }
+
+            public void setMaxBackoff(Duration maxBackoff) {
+                this.maxBackoff = maxBackoff;
+            }
+        }
+
+        @NotFillMeAttributesValues
+        public static final class ChangeWatcherProperties {
+
+            /**
+             * Poll the billboard of every spreadsheet in the background, keeping the cached reads up to date and
+             * telling the subscribers when the spreadsheet has been changed, also by hand.
+             */
+            private boolean enabled = false;
+
+            /**
+             * How often the billboard of each spreadsheet is read.
+             */
+            @NotNull
+            private Duration interval = Duration.ofSeconds(5);
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getInterval() {
+                return this.interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            @AssertTrue(message = "interval must be positive")
+            public boolean isIntervalPositive() {
+                return isPositive(this.interval);
+            }
+        }
+    }
+
+    @NotFillMeAttributesValues
+    public static final class SeatsProperties {
+
+        /**
+         * Number of seats of the bus of the local stores. A spreadsheet has its own, in the C2 cell, which the worker
+         * takes instead.
+         */
+        @Min(1)
+        private int capacity = 112;
+
+        /**
+         * Bus shown in the seats table when the seats are not stored in Google Sheets.
+         */
+        @NotBlank
+        private String bus = "1";
+
+        /**
+         * Schedule shown in the seats table when the seats are not stored in Google Sheets.
+         */
+        @NotBlank
+        private String schedule = "8:15";
+
+        /**
+         * How often the seats handed out by this worker are checked against the seat store.
+         */
+        @NotNull
+        private Duration reconcileInterval = Duration.ofMinutes(1);
+
+        @Valid
+        private StoreProperties store = new StoreProperties();
+
+        public int getCapacity() {
+            return this.capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public String getBus() {
+            return this.bus;
+        }
+
+        public void setBus(String bus) {
+            this.bus = bus;
+        }
+
+        public String getSchedule() {
+            return this.schedule;
+        }
+
+        public void setSchedule(String schedule) {
+            this.schedule = schedule;
+        }
+
+        public Duration getReconcileInterval() {
+            return this.reconcileInterval;
+        }
+
+        public void setReconcileInterval(Duration reconcileInterval) {
+            this.reconcileInterval = reconcileInterval;
+        }
+
+        @AssertTrue(message = "reconcileInterval must be positive")
+        public boolean isReconcileIntervalPositive() {
+            return isPositive(this.reconcileInterval);
+        }
+
+        public StoreProperties getStore() {
+            return this.store;
+        }
+
+        @NotFillMeAttributesValues
+        public static final class StoreProperties {
+
+            /**
+             * Where the reservations are kept.
+             */
+            @NotNull
+            private StoreType type = StoreType.GOOGLE_SHEETS;
+
+            /**
+             * Copy the reservations to Google Sheets in background, when they are kept somewhere else.
+             */
+            private boolean mirrorToGoogleSheets = false;
+
+            /**
+             * File used by the {@code MAPPED_FILE} store.
+             */
+            @NotBlank
+            private String file = "seats.dat";
+
+            public StoreType getType() {
+                return this.type;
+            }
+
+            public void setType(StoreType type) {
+                this.type = type;
+            }
+
+            public boolean isMirrorToGoogleSheets() {
+                return this.mirrorToGoogleSheets;
+            }
+
+            public void setMirrorToGoogleSheets(boolean mirrorToGoogleSheets) {
+                this.mirrorToGoogleSheets = mirrorToGoogleSheets;
+            }
+
+            public String getFile() {
+                return this.file;
+            }
+
+            public void setFile(String file) {
+                this.file = file;
+            }
+
+            public enum StoreType {
+                GOOGLE_SHEETS,
+                IN_MEMORY,
+                MAPPED_FILE,
+            }
+        }
+    }
+
+    @NotFillMeAttributesValues
+    public static final class RouteProperties {
+
+        /**
+         * Spreadsheet where the reservations of the route are kept.
+         */
+        @NotBlank
+        private String spreadsheetId;
+
+        /**
+         * Sheet with the seats table and the passengers of the route.
+         */
+        @NotBlank
+        private String sheetName = "BUS";
+
+        /**
+         * Number of seats of the bus of the route when it is kept in a local store. A spreadsheet has its own, in the
+         * C2 cell, which the worker takes instead.
+         */
+        @Min(1)
+        private int capacity = 112;
+
+        public String getSpreadsheetId() {
+            return this.spreadsheetId;
+        }
+
+        public void setSpreadsheetId(String spreadsheetId) {
+            this.spreadsheetId = spreadsheetId;
+        }
+
+        public String getSheetName() {
+            return this.sheetName;
+        }
+
+        public void setSheetName(String sheetName) {
+            this.sheetName = sheetName;
+        }
+
+        public int getCapacity() {
+            return this.capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
     }
 }
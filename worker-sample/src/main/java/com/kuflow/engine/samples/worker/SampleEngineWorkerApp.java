@@ -7,8 +7,10 @@
 package com.kuflow.engine.samples.worker;
 
 import com.kuflow.engine.client.activity.kuflow.config.KuFlowActivitiesConfiguration;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -18,6 +20,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.env.Environment;
 
@@ -30,8 +33,10 @@ public class SampleEngineWorkerApp implements CommandLineRunner {
 
     public static void main(String[] args) {
         SpringApplication app = new SpringApplication(SampleEngineWorkerApp.class);
-        Environment env = app.run(args).getEnvironment();
-        logApplicationStartup(env);
+        // Scraped by Prometheus from /actuator/prometheus, can be overridden in the application configuration
+        app.setDefaultProperties(Map.of("management.endpoints.web.exposure.include", "health,prometheus"));
+        ConfigurableApplicationContext context = app.run(args);
+        logApplicationStartup(context.getEnvironment(), context.getBean(ApplicationProperties.class));
     }
 
     @Override
@@ -39,7 +44,7 @@ public class SampleEngineWorkerApp implements CommandLineRunner {
         LOGGER.info("Running...");
     }
 
-    private static void logApplicationStartup(Environment env) {
+    private static void logApplicationStartup(Environment env, ApplicationProperties applicationProperties) {
         String protocol = Optional
             .ofNullable(env.getProperty("server.ssl.key-store"))
             .map(key -> "https")
@@ -60,6 +65,7 @@ public class SampleEngineWorkerApp implements CommandLineRunner {
         String[] profiles = ArrayUtils.isNotEmpty(env.getActiveProfiles())
             ? env.getActiveProfiles()
             : env.getDefaultProfiles();
+        TemporalProperties temporal = applicationProperties.getTemporal();
 
         LOGGER.info(
             """
@@ -69,6 +75,14 @@ public class SampleEngineWorkerApp implements CommandLineRunner {
             \tLocal: \t\t{}://localhost:{}{}
             \tExternal: \t{}://{}:{}{}
             \tProfile(s): \t{}
+            \tWorkers: \t{}
+            \tQueues: \t{}, {}
+            \tRoutes: \t{}
+            \tWorker: \t{} activities, {} workflow tasks, {} local activities
+            \tPollers: \t{} workflow task, {} activity task
+            \tSheets worker: \t{} activities, {} activity task pollers
+            \tWorkflows: \t{} cached, {} threads
+            \tPayloads: \t{}, compression {}
             ----------------------------------------------------------
             """,
             env.getProperty("spring.application.name"),
@@ -79,7 +93,24 @@ public class SampleEngineWorkerApp implements CommandLineRunner {
             hostAddress,
             serverPort,
             contextPath,
-            profiles
+            profiles,
+            temporal.getWorkers(),
+            temporal.getKuflowQueue(),
+            TemporalBootstrap.getGoogleSheetsQueue(temporal),
+            applicationProperties.getRoutes().keySet(),
+            temporal.getWorker().getMaxConcurrentActivityExecutionSize(),
+            temporal.getWorker().getMaxConcurrentWorkflowTaskExecutionSize(),
+            temporal.getWorker().getMaxConcurrentLocalActivityExecutionSize(),
+            temporal.getWorker().getMaxConcurrentWorkflowTaskPollers(),
+            temporal.getWorker().getMaxConcurrentActivityTaskPollers(),
+            temporal.getGoogleSheetsWorker().getMaxConcurrentActivityExecutionSize(),
+            temporal.getGoogleSheetsWorker().getMaxConcurrentActivityTaskPollers(),
+            temporal.getWorkerFactory().getWorkflowCacheSize(),
+            temporal.getWorkerFactory().getMaxWorkflowThreadCount(),
+            temporal.getPayloads().getEncoding(),
+            temporal.getPayloads().isCompressionEnabled()
+                ? "from " + temporal.getPayloads().getCompressionThreshold()
+                : "off"
         );
     }
 }
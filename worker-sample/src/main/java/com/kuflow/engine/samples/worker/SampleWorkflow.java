@@ -8,6 +8,7 @@ package com.kuflow.engine.samples.worker;
 
 import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
 import com.kuflow.engine.client.common.resource.WorkflowResponseResource;
+import io.temporal.workflow.SignalMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 
@@ -15,4 +16,18 @@ import io.temporal.workflow.WorkflowMethod;
 public interface SampleWorkflow {
     @WorkflowMethod(name = "BSRWorkflow")
     WorkflowResponseResource runWorkflow(WorkflowRequestResource request);
+
+    /**
+     * Sent by the waitlist of the route when it is the turn of the reservation waiting for a seat.
+     */
+    @SignalMethod
+    void seatReleased();
+
+    /**
+     * Sent by the shard of the waitlist that keeps the reservation while it waits for a seat.
+     *
+     * @param waitlistShardWorkflowId workflow id of the shard, the one to leave until a seat is released
+     */
+    @SignalMethod
+    void waitlistJoined(String waitlistShardWorkflowId);
 }
@@ -17,10 +17,20 @@ import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
 import com.kuflow.engine.client.common.resource.WorkflowResponseResource;
 import com.kuflow.engine.client.common.util.TemporalUtils;
 import com.kuflow.engine.samples.worker.activity.GSheetsActivities;
+import com.kuflow.engine.samples.worker.activity.resource.SeatInventoryResource;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
 import com.kuflow.rest.client.resource.TaskElementValueWrapperResource;
 import com.kuflow.rest.client.resource.TaskResource;
+import com.uber.m3.tally.Scope;
 import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
 import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Functions;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.SignalExternalWorkflowException;
 import io.temporal.workflow.Workflow;
 import java.time.Duration;
 import java.util.List;
@@ -36,12 +46,79 @@ public class SampleWorkflowImpl implements SampleWorkflow {
     private static final String TASK_CODE_NOTIFICATION_NO_SEATS_AVAILABLE = "NOTIF_NOSEAT";
     private static final String TASK_CODE_NOTIFICATION_RESERVATION_COMPLETE = "NOTIF_RSVCP";
 
+    private static final String CHANGE_ID_SEAT_INVENTORY = "seat-inventory";
+    private static final String CHANGE_ID_SEAT_LEDGER = "seat-ledger";
+    private static final String CHANGE_ID_GSHEETS_QUEUE = "gsheets-queue";
+    private static final String CHANGE_ID_ROUTES = "routes";
+    private static final String CHANGE_ID_LOCAL_READS = "local-reads";
+    private static final String CHANGE_ID_PARALLEL_STEPS = "parallel-steps";
+    private static final String CHANGE_ID_WAITLIST = "waitlist";
+
+    private static final String MEMO_ROUTE = "route";
+
+    private static final String NO_SEATS_AVAILABLE = "0";
+
+    private static final Duration KUFLOW_TASK_TIMEOUT = Duration.ofDays(365);
+
+    private static final Duration WAITLIST_JOINED_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final String STEP_RETRIEVE_SEAT_INVENTORY = "retrieve-seat-inventory";
+    private static final String STEP_WAITLIST = "waitlist";
+    private static final String STEP_RESERVATION_FORM = "reservation-form";
+    private static final String STEP_RESERVE_SEAT = "reserve-seat";
+    private static final String STEP_NOTIFICATION_NO_SEATS_AVAILABLE = "notification-no-seats-available";
+    private static final String STEP_NOTIFICATION_RESERVATION_COMPLETE = "notification-reservation-complete";
+    private static final String STEP_COMPLETE_PROCESS = "complete-process";
+
     private final KuFlowActivities kuflowActivities;
-    private final GSheetsActivities gSheetsActivities;
+    private final GSheetsActivities kuflowQueueGSheetsActivities;
+    private final GSheetsActivities googleSheetsQueueGSheetsActivities;
+
+    private final ActivityOptions defaultActivityOptions;
+    private final Map<String, ActivityOptions> googleSheetsActivityOptions;
+    private final Map<String, String> routeGoogleSheetsQueues;
+    private final LocalActivityOptions localReadOptions;
+    private final Duration waitlistTimeout;
+
+    private GSheetsActivities gSheetsActivities;
+    private GSheetsActivities gSheetsReadActivities;
+
+    private boolean parallelSteps;
+
+    private SeatWaitlistWorkflow seatWaitlist;
+
+    private boolean seatReleased;
+
+    private boolean waitlistReleased;
+
+    private String waitlistShardWorkflowId;
 
     private KuFlowGenerator kuFlowGenerator;
 
-    public SampleWorkflowImpl() {
+    /**
+     * @param googleSheetsQueue task queue of the Google Sheets activities
+     */
+    public SampleWorkflowImpl(String googleSheetsQueue) {
+        this(googleSheetsQueue, Map.of(), null, Map.of(), null);
+    }
+
+    /**
+     * @param googleSheetsQueue task queue of the Google Sheets activities of the reservations without a route
+     * @param routeGoogleSheetsQueues task queue of the Google Sheets activities of each route, by route key
+     * @param localReadOptions options of the read-only Google Sheets activities run as local activities, or null to
+     *     run them as regular activities
+     * @param googleSheetsActivityOptions options of each Google Sheets activity by activity type, those not given use
+     *     the default options
+     * @param waitlistTimeout how long the reservations that find no seats wait on the waitlist of their route, or null
+     *     to notify them right away that there are no seats
+     */
+    public SampleWorkflowImpl(
+        String googleSheetsQueue,
+        Map<String, String> routeGoogleSheetsQueues,
+        LocalActivityOptions localReadOptions,
+        Map<String, ActivityOptions> googleSheetsActivityOptions,
+        Duration waitlistTimeout
+    ) {
         RetryOptions defaultRetryOptions = RetryOptions.newBuilder().validateBuildWithDefaults();
 
         ActivityOptions defaultActivityOptions = ActivityOptions
@@ -55,7 +132,7 @@ public class SampleWorkflowImpl implements SampleWorkflow {
             .newBuilder()
             .setRetryOptions(defaultRetryOptions)
             .setStartToCloseTimeout(Duration.ofDays(1))
-            .setScheduleToCloseTimeout(Duration.ofDays(365))
+            .setScheduleToCloseTimeout(KUFLOW_TASK_TIMEOUT)
             .validateAndBuildWithDefaults();
 
         this.kuflowActivities =
@@ -67,7 +144,35 @@ public class SampleWorkflowImpl implements SampleWorkflow {
                     asyncActivityOptions
                 )
             );
-        this.gSheetsActivities = Workflow.newActivityStub(GSheetsActivities.class, defaultActivityOptions);
+        this.kuflowQueueGSheetsActivities =
+            Workflow.newActivityStub(GSheetsActivities.class, defaultActivityOptions, googleSheetsActivityOptions);
+        this.googleSheetsQueueGSheetsActivities =
+            Workflow.newActivityStub(
+                GSheetsActivities.class,
+                ActivityOptions
+                    .newBuilder(defaultActivityOptions)
+                    .setTaskQueue(googleSheetsQueue)
+                    .validateAndBuildWithDefaults(),
+                googleSheetsActivityOptions
+            );
+        this.defaultActivityOptions = defaultActivityOptions;
+        this.googleSheetsActivityOptions = googleSheetsActivityOptions;
+        this.routeGoogleSheetsQueues = routeGoogleSheetsQueues;
+        this.localReadOptions = localReadOptions;
+        this.waitlistTimeout = waitlistTimeout;
+    }
+
+    /**
+     * Longest a reservation runs: it waits for two KuFlow tasks to be finished, the form and the notification, each up
+     * to its schedule to close timeout, and for a seat on the waitlist.
+     *
+     * @param waitlistTimeout how long the reservations wait on the waitlist, or null if they don't wait
+     * @return longest run
+     */
+    public static Duration getLongestRun(Duration waitlistTimeout) {
+        Duration longestRun = KUFLOW_TASK_TIMEOUT.multipliedBy(2);
+
+        return waitlistTimeout != null ? longestRun.plus(waitlistTimeout) : longestRun;
     }
 
     @Override
@@ -76,23 +181,151 @@ public class SampleWorkflowImpl implements SampleWorkflow {
 
         this.kuFlowGenerator = new KuFlowGenerator(request.getProcessId());
 
-        String seatsAvailable = this.gSheetsActivities.getCellValue();
-
-        if ((seatsAvailable).equalsIgnoreCase("0")) {
-            this.createTaskNotificationNoSeatsAvailable(request);
+        // Workflows started before the dedicated queue keep scheduling the Google Sheets activities on the KuFlow queue
+        int version = Workflow.getVersion(CHANGE_ID_GSHEETS_QUEUE, Workflow.DEFAULT_VERSION, 1);
+        this.gSheetsActivities =
+            version == Workflow.DEFAULT_VERSION
+                ? this.kuflowQueueGSheetsActivities
+                : this.getRouteGSheetsActivities();
+        this.gSheetsReadActivities = this.getReadGSheetsActivities();
+        // Workflows started before the parallel steps keep running them one after another to replay deterministically
+        this.parallelSteps =
+            Workflow.getVersion(CHANGE_ID_PARALLEL_STEPS, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION;
+
+        SeatInventoryResource seatInventory = this.waitForSeatIfNoneAvailable(
+            this.step(STEP_RETRIEVE_SEAT_INVENTORY, this::retrieveSeatInventory)
+        );
+
+        Promise<TaskResource> taskNotification;
+        if (seatInventory.getSeatsAvailable().equalsIgnoreCase(NO_SEATS_AVAILABLE)) {
+            taskNotification =
+                this.step(
+                    STEP_NOTIFICATION_NO_SEATS_AVAILABLE,
+                    () -> this.createTaskNotificationNoSeatsAvailable(request)
+                );
         } else {
-            TaskResource taskReservationApplication = this.createTaskReservationForm(request);
-            this.getFormInfoToWrite(taskReservationApplication);
-            this.createTaskNotificationReservationComplete(request);
+            TaskResource taskReservationApplication =
+                this.step(STEP_RESERVATION_FORM, () -> this.createTaskReservationForm(request, seatInventory));
+            String seatNo = this.step(STEP_RESERVE_SEAT, () -> this.reserveSeat(taskReservationApplication));
+            Promise<Void> waitlistLeft = this.leaveWaitlistWhileNotifying();
+            if (seatNo == null) {
+                taskNotification =
+                    this.step(
+                        STEP_NOTIFICATION_NO_SEATS_AVAILABLE,
+                        () -> this.createTaskNotificationNoSeatsAvailable(request)
+                    );
+            } else {
+                taskNotification =
+                    this.step(
+                        STEP_NOTIFICATION_RESERVATION_COMPLETE,
+                        () -> this.createTaskNotificationReservationComplete(request, seatNo)
+                    );
+            }
+            waitlistLeft.get();
         }
 
-        CompleteProcessResponseResource completeProcess = this.completeProcess(request.getProcessId());
+        // The notification is already finished, so the process is completed while it is being retrieved
+        CompleteProcessResponseResource completeProcess =
+            this.step(STEP_COMPLETE_PROCESS, () -> this.completeProcess(request.getProcessId()));
+        this.awaitNotificationRetrieved(taskNotification);
 
         LOGGER.info("Process {} finished", request.getProcessId());
 
         return this.completeWorkflow(completeProcess);
     }
 
+    @Override
+    public void seatReleased() {
+        this.seatReleased = true;
+    }
+
+    @Override
+    public void waitlistJoined(String waitlistShardWorkflowId) {
+        this.waitlistShardWorkflowId = waitlistShardWorkflowId;
+    }
+
+    /**
+     * Run a step of the workflow recording its duration, and counting it if it fails. The metrics scope of the
+     * workflow doesn't report anything while replaying, so each step is recorded once.
+     *
+     * @param name step name
+     * @param step step to run
+     * @return step result
+     */
+    private <R> R step(String name, Functions.Func<R> step) {
+        Scope scope = Workflow.getMetricsScope().tagged(Map.of("step", name));
+        long start = Workflow.currentTimeMillis();
+        try {
+            return step.apply();
+        } catch (RuntimeException e) {
+            scope.counter("workflow.step.errors").inc(1);
+            throw e;
+        } finally {
+            long elapsed = Workflow.currentTimeMillis() - start;
+            scope.timer("workflow.step.latency").record(com.uber.m3.util.Duration.ofMillis(elapsed));
+        }
+    }
+
+    /**
+     * Google Sheets activities of the route of the reservation, given in the "route" memo of the workflow. Each route
+     * has its own task queue, served by the workers that keep its spreadsheet and seats.
+     *
+     * @return activities of the route, or those of the default spreadsheet when the reservation has no route
+     */
+    private GSheetsActivities getRouteGSheetsActivities() {
+        int version = Workflow.getVersion(CHANGE_ID_ROUTES, Workflow.DEFAULT_VERSION, 1);
+        String route = Workflow.getMemo(MEMO_ROUTE, String.class, String.class);
+        if (version == Workflow.DEFAULT_VERSION || route == null) {
+            return this.googleSheetsQueueGSheetsActivities;
+        }
+
+        String routeGoogleSheetsQueue = this.routeGoogleSheetsQueues.get(route);
+        if (routeGoogleSheetsQueue == null) {
+            // Scheduling on a queue nobody polls would leave the reservation waiting forever
+            throw ApplicationFailure.newNonRetryableFailure("Unknown route " + route, "UnknownRoute");
+        }
+        LOGGER.info("Reservation on route {}", route);
+
+        return Workflow.newActivityStub(
+            GSheetsActivities.class,
+            ActivityOptions
+                .newBuilder(this.defaultActivityOptions)
+                .setTaskQueue(routeGoogleSheetsQueue)
+                .validateAndBuildWithDefaults(),
+            this.googleSheetsActivityOptions
+        );
+    }
+
+    /**
+     * Google Sheets activities used for the read-only calls. When enabled, the reads of the default spreadsheet run
+     * as local activities of the KuFlow worker, saving the round trips to the Temporal server and their events.
+     *
+     * @return local activities, or the regular ones for the routes and when the local reads are disabled
+     */
+    private GSheetsActivities getReadGSheetsActivities() {
+        int version = Workflow.getVersion(CHANGE_ID_LOCAL_READS, Workflow.DEFAULT_VERSION, 1);
+        if (version == Workflow.DEFAULT_VERSION || this.gSheetsActivities != this.googleSheetsQueueGSheetsActivities) {
+            return this.gSheetsActivities;
+        }
+
+        // Recorded in the history, so the workflows in progress replay the same after changing the configuration
+        boolean localReads = Workflow.sideEffect(Boolean.class, () -> this.localReadOptions != null);
+        if (!localReads) {
+            return this.gSheetsActivities;
+        }
+
+        LocalActivityOptions localActivityOptions = this.localReadOptions;
+        if (localActivityOptions == null) {
+            localActivityOptions =
+                LocalActivityOptions
+                    .newBuilder()
+                    .setStartToCloseTimeout(this.defaultActivityOptions.getStartToCloseTimeout())
+                    .validateAndBuildWithDefaults();
+        }
+
+        return Workflow.newLocalActivityStub(GSheetsActivities.class, localActivityOptions);
+    }
+
     private WorkflowResponseResource completeWorkflow(CompleteProcessResponseResource completeProcess) {
         WorkflowResponseResource workflowResponse = new WorkflowResponseResource();
         workflowResponse.setMessage(completeProcess.getMessage());
@@ -100,6 +333,196 @@ public class SampleWorkflowImpl implements SampleWorkflow {
         return workflowResponse;
     }
 
+    /**
+     * Read the seats availability and the seats table from the spreadsheet. The seats table is prefetched while the
+     * availability is checked, and only waited for if there are seats left.
+     *
+     * @return seats snapshot
+     */
+    private SeatInventoryResource retrieveSeatInventory() {
+        if (this.parallelSteps) {
+            Promise<String> seatsAvailable = Async.function(this.gSheetsReadActivities::getCellValue);
+            Promise<List<String>> seatTable = Async.function(this.gSheetsReadActivities::readSheet);
+
+            SeatInventoryResource seatInventory = new SeatInventoryResource();
+            seatInventory.setSeatsAvailable(seatsAvailable.get());
+            if (!seatInventory.getSeatsAvailable().equalsIgnoreCase(NO_SEATS_AVAILABLE)) {
+                seatInventory.setSeatTable(seatTable.get().get(0));
+            }
+
+            return seatInventory;
+        }
+
+        int version = Workflow.getVersion(CHANGE_ID_SEAT_INVENTORY, Workflow.DEFAULT_VERSION, 1);
+        if (version != Workflow.DEFAULT_VERSION) {
+            return this.gSheetsReadActivities.getSeatInventory();
+        }
+
+        // Workflows started before the batched read keep reading each range on its own to replay deterministically
+        SeatInventoryResource seatInventory = new SeatInventoryResource();
+        seatInventory.setSeatsAvailable(this.gSheetsActivities.getCellValue());
+        if (!seatInventory.getSeatsAvailable().equalsIgnoreCase(NO_SEATS_AVAILABLE)) {
+            seatInventory.setSeatTable(this.gSheetsActivities.readSheet().get(0));
+        }
+
+        return seatInventory;
+    }
+
+    /**
+     * When there are no seats available and the waitlist is enabled, parks the reservation on the waitlist of its
+     * route until a seat is released for it.
+     *
+     * @param seatInventory seats snapshot read when the workflow started
+     * @return seats snapshot read once a seat has been released, or the given one
+     */
+    private SeatInventoryResource waitForSeatIfNoneAvailable(SeatInventoryResource seatInventory) {
+        if (!seatInventory.getSeatsAvailable().equalsIgnoreCase(NO_SEATS_AVAILABLE)) {
+            return seatInventory;
+        }
+
+        int version = Workflow.getVersion(CHANGE_ID_WAITLIST, Workflow.DEFAULT_VERSION, 1);
+        if (version == Workflow.DEFAULT_VERSION) {
+            return seatInventory;
+        }
+
+        // Recorded in the history, so the workflows in progress replay the same after changing the configuration
+        long waitlistTimeoutMillis = Workflow.sideEffect(
+            Long.class,
+            () -> this.waitlistTimeout != null ? this.waitlistTimeout.toMillis() : 0L
+        );
+        if (waitlistTimeoutMillis <= 0) {
+            return seatInventory;
+        }
+
+        Duration waitlistTimeout = Duration.ofMillis(waitlistTimeoutMillis);
+
+        return this.step(STEP_WAITLIST, () -> this.waitForSeat(seatInventory, waitlistTimeout));
+    }
+
+    /**
+     * Joins the waitlist of the route and waits for the signal releasing a seat, without polling. Released, the seats
+     * are read again, and the reservation goes back to the head of the waitlist if the seat has been taken meanwhile.
+     * The reservation stops waiting if the waitlist can't be signaled, because it is not running.
+     *
+     * @param seatInventory seats snapshot with no seats available
+     * @param timeout how long to wait for a seat
+     * @return seats snapshot once a seat has been released, or the given one if none was released in time
+     */
+    private SeatInventoryResource waitForSeat(SeatInventoryResource seatInventory, Duration timeout) {
+        String route = Workflow.getMemo(MEMO_ROUTE, String.class, String.class);
+        String workflowId = Workflow.getInfo().getWorkflowId();
+        this.seatWaitlist =
+            Workflow.newExternalWorkflowStub(
+                SeatWaitlistWorkflow.class,
+                SeatWaitlistWorkflowImpl.getWorkflowId(route != null ? route : SeatLedger.DEFAULT_ROUTE)
+            );
+        if (!this.signalWaitlist(seatWaitlist -> seatWaitlist.join(workflowId))) {
+            return seatInventory;
+        }
+        LOGGER.info("Waiting for a seat on the waitlist");
+
+        long deadline = Workflow.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            long remainingMillis = deadline - Workflow.currentTimeMillis();
+            if (
+                remainingMillis <= 0 ||
+                !Workflow.await(Duration.ofMillis(remainingMillis), () -> this.seatReleased)
+            ) {
+                LOGGER.info("No seat released in {}", timeout);
+                this.leaveWaitlist();
+                return seatInventory;
+            }
+            this.seatReleased = false;
+            this.waitlistReleased = true;
+
+            SeatInventoryResource releasedSeatInventory = this.retrieveSeatInventory();
+            if (
+                !releasedSeatInventory.getSeatsAvailable().equalsIgnoreCase(NO_SEATS_AVAILABLE) ||
+                !this.signalWaitlist(seatWaitlist -> seatWaitlist.requeue(workflowId))
+            ) {
+                return releasedSeatInventory;
+            }
+        }
+    }
+
+    /**
+     * Leaves the waitlist while the reservation goes on with its notification. Workflows started before the parallel
+     * steps leave it before going on.
+     *
+     * @return promise completed once the waitlist has been left
+     */
+    private Promise<Void> leaveWaitlistWhileNotifying() {
+        if (this.parallelSteps) {
+            return Async.procedure(this::leaveWaitlist);
+        }
+        this.leaveWaitlist();
+
+        return Workflow.newPromise(null);
+    }
+
+    /**
+     * Leaves the waitlist, if the reservation joined it, giving back the seat held to the next reservations. Until it
+     * has been released the reservation is kept by a shard of the waitlist, and leaves the shard once it knows which.
+     */
+    private void leaveWaitlist() {
+        if (this.seatWaitlist == null) {
+            return;
+        }
+
+        String workflowId = Workflow.getInfo().getWorkflowId();
+        if (this.waitlistReleased || this.seatReleased || !this.leaveWaitlistShard(workflowId)) {
+            this.signalWaitlist(seatWaitlist -> seatWaitlist.leave(workflowId));
+        }
+        this.seatWaitlist = null;
+    }
+
+    /**
+     * Leaves the shard of the waitlist that keeps the reservation, waiting a while to know it if the reservation has
+     * just joined. The shard sends the leave on to the waitlist if it has released the reservation meanwhile.
+     *
+     * @param workflowId reservation workflow
+     * @return true if the shard has been signaled
+     */
+    private boolean leaveWaitlistShard(String workflowId) {
+        if (this.waitlistShardWorkflowId == null) {
+            Workflow.await(WAITLIST_JOINED_TIMEOUT, () -> this.waitlistShardWorkflowId != null || this.seatReleased);
+        }
+        if (this.waitlistShardWorkflowId == null || this.seatReleased) {
+            return false;
+        }
+
+        SeatWaitlistShardWorkflow seatWaitlistShard = Workflow.newExternalWorkflowStub(
+            SeatWaitlistShardWorkflow.class,
+            this.waitlistShardWorkflowId
+        );
+        try {
+            seatWaitlistShard.leave(workflowId);
+            return true;
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            LOGGER.warn("Seat waitlist shard {} is not running", this.waitlistShardWorkflowId);
+            return false;
+        }
+    }
+
+    /**
+     * Signals the waitlist the reservation joined. The waitlist is started by the KuFlow worker, so it may not be
+     * running yet, or may have been terminated, and then the reservation gives up the waitlist instead of failing. The
+     * signal to a workflow that is not running fails with an application failure, not only with the signal exception.
+     *
+     * @param signal signal to send
+     * @return true if the waitlist has been signaled
+     */
+    private boolean signalWaitlist(Functions.Proc1<SeatWaitlistWorkflow> signal) {
+        try {
+            signal.apply(this.seatWaitlist);
+            return true;
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            LOGGER.warn("Seat waitlist is not running", e);
+            this.seatWaitlist = null;
+            return false;
+        }
+    }
+
     private CompleteProcessResponseResource completeProcess(UUID processId) {
         CompleteProcessRequestResource request = new CompleteProcessRequestResource();
         request.setProcessId(processId);
@@ -111,9 +534,13 @@ public class SampleWorkflowImpl implements SampleWorkflow {
      * Create task "Reservation Form" in KuFlow and wait for its completion
      *
      * @param workflowRequest workflow request
+     * @param seatInventory seats snapshot
      * @return task created
      */
-    private TaskResource createTaskReservationForm(WorkflowRequestResource workflowRequest) {
+    private TaskResource createTaskReservationForm(
+        WorkflowRequestResource workflowRequest,
+        SeatInventoryResource seatInventory
+    ) {
         UUID taskId = this.kuFlowGenerator.randomUUID();
 
         CreateTaskRequestResource createTaskRequest = new CreateTaskRequestResource();
@@ -121,27 +548,23 @@ public class SampleWorkflowImpl implements SampleWorkflow {
         createTaskRequest.setTaskDefinitionCode(TASK_CODE_RESERVATION_FORM);
         createTaskRequest.setProcessId(workflowRequest.getProcessId());
 
-        // Adding the reading of the sheet and passing it to the text element
-        List<String> result = this.gSheetsActivities.readSheet();
-        createTaskRequest.putElementValuesItem("seats", TaskElementValueWrapperResource.of(result.get(0)));
+        // Passing the seats table read from the sheet to the text element
+        String seatTable = seatInventory.getSeatTable();
+        createTaskRequest.putElementValuesItem("seats", TaskElementValueWrapperResource.of(seatTable));
 
-        // Create and retrieve Task in KuFlow
+        // The form values are needed to reserve the seat, so the task is retrieved right away
         this.kuflowActivities.createTaskAndWaitFinished(createTaskRequest);
 
-        RetrieveTaskRequestResource retrieveTaskRequest = new RetrieveTaskRequestResource();
-        retrieveTaskRequest.setTaskId(taskId);
-        RetrieveTaskResponseResource retrieveTaskResponse = this.kuflowActivities.retrieveTask(retrieveTaskRequest);
-
-        return retrieveTaskResponse.getTask();
+        return this.retrieveTask(taskId);
     }
 
     /**
      * Create task "Notification: No seats available" in KuFlow and wait for its completion
      *
      * @param workflowRequest workflow request
-     * @return task created
+     * @return task created, see {@link #createNotificationTask}
      */
-    private TaskResource createTaskNotificationNoSeatsAvailable(WorkflowRequestResource workflowRequest) {
+    private Promise<TaskResource> createTaskNotificationNoSeatsAvailable(WorkflowRequestResource workflowRequest) {
         UUID taskId = this.kuFlowGenerator.randomUUID();
 
         CreateTaskRequestResource createTaskRequest = new CreateTaskRequestResource();
@@ -149,23 +572,20 @@ public class SampleWorkflowImpl implements SampleWorkflow {
         createTaskRequest.setTaskDefinitionCode(TASK_CODE_NOTIFICATION_NO_SEATS_AVAILABLE);
         createTaskRequest.setProcessId(workflowRequest.getProcessId());
 
-        // Create and retrieve Task in KuFlow
-        this.kuflowActivities.createTaskAndWaitFinished(createTaskRequest);
-
-        RetrieveTaskRequestResource retrieveTaskRequest = new RetrieveTaskRequestResource();
-        retrieveTaskRequest.setTaskId(taskId);
-        RetrieveTaskResponseResource retrieveTaskResponse = this.kuflowActivities.retrieveTask(retrieveTaskRequest);
-
-        return retrieveTaskResponse.getTask();
+        return this.createNotificationTask(createTaskRequest);
     }
 
     /**
      * Create task "Notification: Reservation complete" in KuFlow and wait for its completion
      *
      * @param workflowRequest workflow request
-     * @return task created
+     * @param seatNo seat reserved
+     * @return task created, see {@link #createNotificationTask}
      */
-    private TaskResource createTaskNotificationReservationComplete(WorkflowRequestResource workflowRequest) {
+    private Promise<TaskResource> createTaskNotificationReservationComplete(
+        WorkflowRequestResource workflowRequest,
+        String seatNo
+    ) {
         UUID taskId = this.kuFlowGenerator.randomUUID();
 
         CreateTaskRequestResource createTaskRequest = new CreateTaskRequestResource();
@@ -173,13 +593,44 @@ public class SampleWorkflowImpl implements SampleWorkflow {
         createTaskRequest.setTaskDefinitionCode(TASK_CODE_NOTIFICATION_RESERVATION_COMPLETE);
         createTaskRequest.setProcessId(workflowRequest.getProcessId());
 
-        // Get the row count to know the seat number and inform user
-        String seatNo = this.gSheetsActivities.getSeatNo();
+        // Inform the user about the seat number
         createTaskRequest.putElementValuesItem("seatNo", TaskElementValueWrapperResource.of(seatNo));
 
-        // Create and retrieve Task in KuFlow
+        return this.createNotificationTask(createTaskRequest);
+    }
+
+    /**
+     * Create a notification task in KuFlow and retrieve it once finished. Nothing else needs the notification, so the
+     * workflow goes on while it is retrieved.
+     *
+     * @param createTaskRequest task to create
+     * @return task created, being retrieved. Workflows started before the parallel steps wait for it here to replay
+     *     deterministically
+     */
+    private Promise<TaskResource> createNotificationTask(CreateTaskRequestResource createTaskRequest) {
         this.kuflowActivities.createTaskAndWaitFinished(createTaskRequest);
+        if (!this.parallelSteps) {
+            return Workflow.newPromise(this.retrieveTask(createTaskRequest.getTaskId()));
+        }
 
+        return Async.function(this::retrieveTask, createTaskRequest.getTaskId());
+    }
+
+    /**
+     * Waits for the retrieval of the notification task. The process is already completed, so a failed retrieval is
+     * only logged instead of failing the workflow.
+     *
+     * @param taskNotification notification task being retrieved
+     */
+    private void awaitNotificationRetrieved(Promise<TaskResource> taskNotification) {
+        try {
+            taskNotification.get();
+        } catch (ActivityFailure e) {
+            LOGGER.warn("Notification task could not be retrieved, the process is already completed", e);
+        }
+    }
+
+    private TaskResource retrieveTask(UUID taskId) {
         RetrieveTaskRequestResource retrieveTaskRequest = new RetrieveTaskRequestResource();
         retrieveTaskRequest.setTaskId(taskId);
         RetrieveTaskResponseResource retrieveTaskResponse = this.kuflowActivities.retrieveTask(retrieveTaskRequest);
@@ -187,6 +638,27 @@ public class SampleWorkflowImpl implements SampleWorkflow {
         return retrieveTaskResponse.getTask();
     }
 
+    /**
+     * Write the reservation in the spreadsheet and get the seat assigned to it
+     *
+     * @param task reservation form task
+     * @return seat number, or null if the bus got full while the form was being filled
+     */
+    private String reserveSeat(TaskResource task) {
+        int version = Workflow.getVersion(CHANGE_ID_SEAT_LEDGER, Workflow.DEFAULT_VERSION, 1);
+        if (version == Workflow.DEFAULT_VERSION) {
+            // Workflows started before the seat ledger count the rows after writing to replay deterministically
+            this.getFormInfoToWrite(task);
+            return this.gSheetsActivities.getSeatNo();
+        }
+
+        String firstName = task.getElementValues().get("firstName").getValueAsString();
+        String lastName = task.getElementValues().get("lastName").getValueAsString();
+        String email = task.getElementValues().get("email").getValueAsString();
+
+        return this.gSheetsActivities.reserveSeat(firstName, lastName, email);
+    }
+
     private List<String> getFormInfoToWrite(TaskResource task) {
         String firstName = task.getElementValues().get("firstName").getValueAsString();
         String lastName = task.getElementValues().get("lastName").getValueAsString();
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker;
+
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.util.List;
+
+/**
+ * Shard of a {@link SeatWaitlistWorkflow}, keeping the reservations of a range of consecutive turns while they wait.
+ * It is started by the waitlist with the first turn of the range, and completes once all its turns have been taken and
+ * all its reservations have been released or have left.
+ */
+@WorkflowInterface
+public interface SeatWaitlistShardWorkflow {
+    /**
+     * Keeps the reservations of the shard until they are released or leave.
+     *
+     * @param waitlistWorkflowId waitlist the shard belongs to
+     * @param turns turns of the shard, it takes no more reservations once they have all been taken
+     */
+    @WorkflowMethod(name = "SeatWaitlistShardWorkflow")
+    void runShard(String waitlistWorkflowId, int turns);
+
+    /**
+     * Adds reservations at the end of the shard, in the order of their turns, and tells each of them with
+     * {@link SampleWorkflow#waitlistJoined(String)} that it waits here.
+     *
+     * @param workflowIds reservation workflows
+     */
+    @SignalMethod
+    void add(List<String> workflowIds);
+
+    /**
+     * Takes the reservations at the head of the shard and sends them to the waitlist with
+     * {@link SeatWaitlistWorkflow#shardReleased(List, boolean)}.
+     *
+     * @param seats reservations to take at most
+     */
+    @SignalMethod
+    void release(int seats);
+
+    /**
+     * Removes a reservation that stopped waiting. If it has already been taken, the leave is sent on to the waitlist,
+     * which has released it.
+     *
+     * @param workflowId reservation workflow
+     */
+    @SignalMethod
+    void leave(String workflowId);
+}
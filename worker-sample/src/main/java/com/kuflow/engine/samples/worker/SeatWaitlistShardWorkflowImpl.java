@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker;
+
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.SignalExternalWorkflowException;
+import io.temporal.workflow.Workflow;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+
+/**
+ * Keeps the reservations of a shard of the waitlist in the order of their turns. The signals only record what has to
+ * be done, and the workflow does it in the order they were received, so a reservation always hears that it joined the
+ * shard before being released, and the waitlist always gets a released reservation before the leave sent on for it.
+ */
+public class SeatWaitlistShardWorkflowImpl implements SeatWaitlistShardWorkflow {
+
+    private static final Logger LOGGER = Workflow.getLogger(SeatWaitlistShardWorkflowImpl.class);
+
+    private final Set<String> waiting = new LinkedHashSet<>();
+
+    private final Deque<Runnable> signaled = new ArrayDeque<>();
+
+    private SeatWaitlistWorkflow waitlist;
+
+    private String workflowId;
+
+    private int turns;
+
+    private int turnsTaken;
+
+    @Override
+    public void runShard(String waitlistWorkflowId, int turns) {
+        this.waitlist = Workflow.newExternalWorkflowStub(SeatWaitlistWorkflow.class, waitlistWorkflowId);
+        this.workflowId = Workflow.getInfo().getWorkflowId();
+        this.turns = turns;
+
+        while (true) {
+            while (!this.signaled.isEmpty()) {
+                this.signaled.pollFirst().run();
+            }
+            // Nothing blocks between the last signal run and the completion, so no signal is left unhandled
+            if (this.isExhausted()) {
+                return;
+            }
+            Workflow.await(() -> !this.signaled.isEmpty());
+        }
+    }
+
+    @Override
+    public void add(List<String> workflowIds) {
+        this.signaled.addLast(() -> this.addWaiting(workflowIds));
+    }
+
+    @Override
+    public void release(int seats) {
+        this.signaled.addLast(() -> this.releaseWaiting(seats));
+    }
+
+    @Override
+    public void leave(String workflowId) {
+        this.signaled.addLast(() -> this.removeWaiting(workflowId));
+    }
+
+    /**
+     * @return true once all the turns have been taken and no reservation waits
+     */
+    private boolean isExhausted() {
+        return this.turnsTaken >= this.turns && this.waiting.isEmpty();
+    }
+
+    private void addWaiting(List<String> workflowIds) {
+        this.turnsTaken += workflowIds.size();
+        List<Promise<Void>> signals = new ArrayList<>();
+        for (String workflowId : workflowIds) {
+            // A reservation that joined again waits behind those that joined meanwhile
+            this.waiting.remove(workflowId);
+            this.waiting.add(workflowId);
+            SampleWorkflow reservation = Workflow.newExternalWorkflowStub(SampleWorkflow.class, workflowId);
+            Promise<Void> signal = Async
+                .procedure(reservation::waitlistJoined, this.workflowId)
+                .exceptionally(failure -> {
+                    // The reservation has been closed meanwhile, it no longer waits
+                    this.waiting.remove(workflowId);
+                    return null;
+                });
+            signals.add(signal);
+        }
+
+        Promise.allOf(signals).get();
+    }
+
+    private void releaseWaiting(int seats) {
+        List<String> releasedWorkflowIds = new ArrayList<>();
+        Iterator<String> iterator = this.waiting.iterator();
+        while (releasedWorkflowIds.size() < seats && iterator.hasNext()) {
+            releasedWorkflowIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        try {
+            this.waitlist.shardReleased(releasedWorkflowIds, this.isExhausted());
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            LOGGER.warn("Seat waitlist is not running, reservations {} can't be released", releasedWorkflowIds);
+        }
+    }
+
+    private void removeWaiting(String workflowId) {
+        if (!this.waiting.remove(workflowId)) {
+            try {
+                this.waitlist.leave(workflowId);
+            } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+                LOGGER.warn("Seat waitlist is not running, reservation {} can't leave it", workflowId);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker;
+
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.util.List;
+
+/**
+ * Waitlist of the reservations of a route that found no seats available. There is one waitlist per route, the
+ * reservations join it and are released in the order they joined as the seats become available. The reservations that
+ * wait are kept by the {@link SeatWaitlistShardWorkflow shards} of the waitlist, each one holding a range of turns, so
+ * the waitlist itself only keeps the reservations it has released.
+ */
+@WorkflowInterface
+public interface SeatWaitlistWorkflow {
+    /**
+     * Serves the waitlist until its history is long enough, then continues as new with its state.
+     *
+     * @param turns turns taken so far, the next reservation that joins takes this one
+     * @param headShard shard holding the next reservations to release
+     * @param releasedWorkflowIds reservations released and not yet left, holding their seat
+     * @param requeuedWorkflowIds released reservations whose seat was taken meanwhile, released first
+     * @param seatsAvailable last seats available published for the route
+     */
+    @WorkflowMethod(name = "SeatWaitlistWorkflow")
+    void runWaitlist(
+        long turns,
+        long headShard,
+        List<String> releasedWorkflowIds,
+        List<String> requeuedWorkflowIds,
+        int seatsAvailable
+    );
+
+    /**
+     * Gives a reservation the next turn, at the end of the waitlist. The shard of the turn tells the reservation that
+     * it waits there with {@link SampleWorkflow#waitlistJoined(String)}.
+     *
+     * @param workflowId reservation workflow
+     */
+    @SignalMethod
+    void join(String workflowId);
+
+    /**
+     * Puts a released reservation back at the head of the waitlist, when the seat has been taken meanwhile.
+     *
+     * @param workflowId reservation workflow
+     */
+    @SignalMethod
+    void requeue(String workflowId);
+
+    /**
+     * Removes a released reservation from the waitlist, once it has got its seat or stopped waiting. The reservations
+     * still waiting leave their shard instead.
+     *
+     * @param workflowId reservation workflow
+     */
+    @SignalMethod
+    void leave(String workflowId);
+
+    /**
+     * Sent by the seat change signaler every time the seats of the route change.
+     *
+     * @param seatsAvailable seats available, as read from the store
+     */
+    @SignalMethod
+    void seatsChanged(String seatsAvailable);
+
+    /**
+     * Sent by the shard at the head of the waitlist in reply to {@link SeatWaitlistShardWorkflow#release(int)}.
+     *
+     * @param workflowIds reservations taken from the shard, in the order of their turns
+     * @param exhausted true if the shard has no more turns to give nor reservations waiting
+     */
+    @SignalMethod
+    void shardReleased(List<String> workflowIds, boolean exhausted);
+}
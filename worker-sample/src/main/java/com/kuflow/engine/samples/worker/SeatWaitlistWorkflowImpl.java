@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker;
+
+import io.temporal.api.enums.v1.ParentClosePolicy;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.failure.ChildWorkflowFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.ChildWorkflowOptions;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.SignalExternalWorkflowException;
+import io.temporal.workflow.Workflow;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+
+/**
+ * Releases the reservations of the waitlist in order, as many as seats are available and not already promised to the
+ * reservations released before. The waitlist does nothing but wait for signals, so it costs nothing while the seats
+ * don't change, however many reservations are parked on it.
+ *
+ * <p>Every time a reservation joins it takes a new turn, and the reservations that wait are kept by a shard per range
+ * of {@value #SHARD_TURNS} turns, started as the first turn of its range is taken. The waitlist only keeps the turns
+ * taken, the shard at the head and the reservations it has released, so its state stays the same size whatever the
+ * number of reservations waiting. The history grows with every signal, so the waitlist continues as new with that state
+ * after {@value #MAX_SIGNALS} signals. The signals only record what has to be done, and the workflow does it in the
+ * order they were received.
+ */
+public class SeatWaitlistWorkflowImpl implements SeatWaitlistWorkflow {
+
+    private static final Logger LOGGER = Workflow.getLogger(SeatWaitlistWorkflowImpl.class);
+
+    private static final int MAX_SIGNALS = 1_000;
+
+    private static final int SHARD_TURNS = 1_000;
+
+    /**
+     * How long the shard at the head is waited for in reply to a release, before asking it again.
+     */
+    private static final Duration SHARD_RELEASE_TIMEOUT = Duration.ofMinutes(1);
+
+    private final int shardTurns;
+
+    private final Deque<Runnable> signaled = new ArrayDeque<>();
+
+    /**
+     * Reservations that joined and have not been given their turn yet.
+     */
+    private final Set<String> joining = new LinkedHashSet<>();
+
+    private final Set<String> released = new LinkedHashSet<>();
+
+    private final Deque<String> requeued = new ArrayDeque<>();
+
+    private String workflowId;
+
+    private long turns;
+
+    private long headShard;
+
+    /**
+     * True once the shard at the head has nothing to release until more reservations join it.
+     */
+    private boolean headShardEmpty;
+
+    private boolean releasing;
+
+    private List<String> shardReleasedWorkflowIds;
+
+    private boolean shardExhausted;
+
+    private int seatsAvailable;
+
+    private int signals;
+
+    public SeatWaitlistWorkflowImpl() {
+        this(SHARD_TURNS);
+    }
+
+    /**
+     * @param shardTurns turns of each shard of the waitlist
+     */
+    public SeatWaitlistWorkflowImpl(int shardTurns) {
+        this.shardTurns = shardTurns;
+    }
+
+    /**
+     * Workflow id of the waitlist of a route.
+     *
+     * @param route route key
+     * @return "seat-waitlist-" followed by the route key
+     */
+    public static String getWorkflowId(String route) {
+        return "seat-waitlist-" + route;
+    }
+
+    /**
+     * Workflow id of a shard of a waitlist.
+     *
+     * @param waitlistWorkflowId workflow id of the waitlist
+     * @param shard number of the shard, the first turn of its range divided by the turns of each shard
+     * @return the waitlist workflow id followed by the number of the shard
+     */
+    public static String getShardWorkflowId(String waitlistWorkflowId, long shard) {
+        return waitlistWorkflowId + "-" + shard;
+    }
+
+    @Override
+    public void runWaitlist(
+        long turns,
+        long headShard,
+        List<String> releasedWorkflowIds,
+        List<String> requeuedWorkflowIds,
+        int seatsAvailable
+    ) {
+        this.workflowId = Workflow.getInfo().getWorkflowId();
+        this.turns = turns;
+        this.headShard = headShard;
+        this.released.addAll(releasedWorkflowIds);
+        // A late reply of a shard may have been received before the state is restored, it goes after
+        List<String> lateWorkflowIds = new ArrayList<>(this.requeued);
+        this.requeued.clear();
+        this.requeued.addAll(requeuedWorkflowIds);
+        this.requeued.addAll(lateWorkflowIds);
+        this.seatsAvailable = seatsAvailable;
+
+        while (true) {
+            while (!this.signaled.isEmpty()) {
+                this.signaled.pollFirst().run();
+            }
+            if (!this.joining.isEmpty()) {
+                this.placeJoining();
+            } else if (this.canRelease()) {
+                this.release();
+            } else if (this.signals >= MAX_SIGNALS) {
+                // Nothing blocks between the last signal run and the continue as new, so no signal is lost
+                break;
+            } else {
+                Workflow.await(() -> !this.signaled.isEmpty());
+            }
+        }
+
+        Workflow.continueAsNew(
+            this.turns,
+            this.headShard,
+            new ArrayList<>(this.released),
+            new ArrayList<>(this.requeued),
+            this.seatsAvailable
+        );
+    }
+
+    @Override
+    public void join(String workflowId) {
+        this.signals++;
+        this.signaled.addLast(() -> {
+            if (!this.released.contains(workflowId) && !this.requeued.contains(workflowId)) {
+                this.joining.add(workflowId);
+            }
+        });
+    }
+
+    @Override
+    public void requeue(String workflowId) {
+        this.signals++;
+        this.signaled.addLast(() -> {
+            this.released.remove(workflowId);
+            if (!this.requeued.contains(workflowId)) {
+                this.requeued.addFirst(workflowId);
+            }
+        });
+    }
+
+    @Override
+    public void leave(String workflowId) {
+        this.signals++;
+        this.signaled.addLast(() -> {
+            this.joining.remove(workflowId);
+            this.released.remove(workflowId);
+            this.requeued.remove(workflowId);
+        });
+    }
+
+    @Override
+    public void seatsChanged(String seatsAvailable) {
+        this.signals++;
+        this.signaled.addLast(() -> {
+            try {
+                this.seatsAvailable = Integer.parseInt(seatsAvailable.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Seats available {} is not a number, no reservation is released", seatsAvailable);
+                this.seatsAvailable = 0;
+            }
+        });
+    }
+
+    @Override
+    public void shardReleased(List<String> workflowIds, boolean exhausted) {
+        this.signals++;
+        if (this.releasing && this.shardReleasedWorkflowIds == null) {
+            this.shardReleasedWorkflowIds = workflowIds;
+            this.shardExhausted = exhausted;
+        } else {
+            // Reply to a release no longer waited for, the reservations are the next ones all the same
+            this.requeued.addAll(workflowIds);
+        }
+    }
+
+    private boolean canRelease() {
+        if (this.getSeatsToRelease() <= 0) {
+            return false;
+        }
+
+        return !this.requeued.isEmpty() || (this.headShard * this.shardTurns < this.turns && !this.headShardEmpty);
+    }
+
+    /**
+     * @return seats available that have not been promised to the reservations already released
+     */
+    private int getSeatsToRelease() {
+        return this.seatsAvailable - this.released.size();
+    }
+
+    /**
+     * Gives the reservations that joined their turns, and adds them to the shards of the turns in one signal per shard.
+     */
+    private void placeJoining() {
+        List<String> workflowIds = new ArrayList<>();
+        for (String workflowId : this.joining) {
+            if (this.turns % this.shardTurns == 0) {
+                this.addToShard(workflowIds);
+                this.startShard(this.turns / this.shardTurns);
+            }
+            workflowIds.add(workflowId);
+            this.turns++;
+        }
+        this.joining.clear();
+        this.addToShard(workflowIds);
+        this.headShardEmpty = false;
+    }
+
+    private void startShard(long shard) {
+        ChildWorkflowOptions options = ChildWorkflowOptions
+            .newBuilder()
+            .setWorkflowId(getShardWorkflowId(this.workflowId, shard))
+            .setParentClosePolicy(ParentClosePolicy.PARENT_CLOSE_POLICY_ABANDON)
+            .build();
+        SeatWaitlistShardWorkflow seatWaitlistShard = Workflow.newChildWorkflowStub(
+            SeatWaitlistShardWorkflow.class,
+            options
+        );
+        Async.procedure(seatWaitlistShard::runShard, this.workflowId, this.shardTurns);
+        try {
+            // The shard is signaled once it has been started
+            Workflow.getWorkflowExecution(seatWaitlistShard).get();
+        } catch (ChildWorkflowFailure e) {
+            LOGGER.warn("Seat waitlist shard {} not started", e.getExecution().getWorkflowId(), e);
+        }
+    }
+
+    /**
+     * Adds the reservations to the shard of the last turn taken, and clears them.
+     */
+    private void addToShard(List<String> workflowIds) {
+        if (workflowIds.isEmpty()) {
+            return;
+        }
+
+        String shardWorkflowId = getShardWorkflowId(this.workflowId, (this.turns - 1) / this.shardTurns);
+        SeatWaitlistShardWorkflow seatWaitlistShard = Workflow.newExternalWorkflowStub(
+            SeatWaitlistShardWorkflow.class,
+            shardWorkflowId
+        );
+        try {
+            seatWaitlistShard.add(new ArrayList<>(workflowIds));
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            LOGGER.warn(
+                "Seat waitlist shard {} is not running, reservations {} can't wait",
+                shardWorkflowId,
+                workflowIds
+            );
+        }
+        workflowIds.clear();
+    }
+
+    /**
+     * Releases the reservations requeued first, and then those at the head shard, as many as seats can be released.
+     */
+    private void release() {
+        int seats = this.getSeatsToRelease();
+        if (!this.requeued.isEmpty()) {
+            List<String> workflowIds = new ArrayList<>();
+            while (workflowIds.size() < seats && !this.requeued.isEmpty()) {
+                workflowIds.add(this.requeued.pollFirst());
+            }
+            this.signalReleased(workflowIds);
+            return;
+        }
+
+        String shardWorkflowId = getShardWorkflowId(this.workflowId, this.headShard);
+        SeatWaitlistShardWorkflow seatWaitlistShard = Workflow.newExternalWorkflowStub(
+            SeatWaitlistShardWorkflow.class,
+            shardWorkflowId
+        );
+        // The reply may be received along with the signal sent
+        this.releasing = true;
+        try {
+            seatWaitlistShard.release(seats);
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            // The shard completes once all its reservations have been released or have left
+            this.releasing = false;
+            this.nextHeadShard();
+            return;
+        }
+
+        boolean replied = Workflow.await(SHARD_RELEASE_TIMEOUT, () -> this.shardReleasedWorkflowIds != null);
+        this.releasing = false;
+        if (!replied) {
+            LOGGER.warn("Seat waitlist shard {} did not reply to the release", shardWorkflowId);
+            return;
+        }
+
+        List<String> workflowIds = this.shardReleasedWorkflowIds;
+        this.shardReleasedWorkflowIds = null;
+        if (this.shardExhausted) {
+            this.nextHeadShard();
+        } else if (workflowIds.size() < seats) {
+            this.headShardEmpty = true;
+        }
+        this.signalReleased(workflowIds);
+    }
+
+    private void nextHeadShard() {
+        this.headShard++;
+        this.headShardEmpty = false;
+    }
+
+    private void signalReleased(List<String> workflowIds) {
+        // The released reservations are signaled all at once, not one round trip after another
+        List<Promise<Void>> signals = new ArrayList<>();
+        for (String workflowId : workflowIds) {
+            this.released.add(workflowId);
+            SampleWorkflow reservation = Workflow.newExternalWorkflowStub(SampleWorkflow.class, workflowId);
+            Promise<Void> signal = Async
+                .procedure(reservation::seatReleased)
+                .exceptionally(failure -> {
+                    // The reservation has been closed meanwhile, its seat goes to the next one
+                    this.released.remove(workflowId);
+                    return null;
+                });
+            signals.add(signal);
+        }
+
+        Promise.allOf(signals).get();
+    }
+}
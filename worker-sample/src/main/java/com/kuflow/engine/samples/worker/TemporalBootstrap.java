@@ -7,14 +7,51 @@
 package com.kuflow.engine.samples.worker;
 
 import com.kuflow.engine.client.activity.kuflow.KuFlowActivities;
+import com.kuflow.engine.client.common.error.KuFlowEngineClientException;
+import com.kuflow.engine.client.common.util.TemporalUtils;
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties.StoreProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties.StoreProperties.StoreType;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.GoogleSheetsActivitiesProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.GoogleSheetsActivitiesProperties.ActivityProfileProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.LocalReadsProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.WaitlistProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.WorkerProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.WorkerType;
+import com.kuflow.engine.samples.worker.activity.AsyncGSheetsActivitiesImpl;
 import com.kuflow.engine.samples.worker.activity.GSheetsActivities;
+import com.kuflow.engine.samples.worker.activity.GSheetsActivitiesImpl;
+import com.kuflow.engine.samples.worker.seat.SeatChangeSignaler;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes.SeatRoute;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsCredentialProvider;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.RetryOptions;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -22,30 +59,71 @@ public class TemporalBootstrap implements InitializingBean, DisposableBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TemporalBootstrap.class);
 
+    private static final Set<String> GOOGLE_SHEETS_WRITE_METHODS = Set.of("writeSheet", "reserveSeat");
+
+    private final WorkflowClient workflowClient;
+
     private final WorkerFactory factory;
 
     private final KuFlowActivities kuflowActivities;
     //Declare the instance variable for our new Activity, add it to the constructor atributes
     private final GSheetsActivities gSheetsActivities;
 
+    private final SeatRoutes seatRoutes;
+
+    private final GoogleSheetsCredentialProvider googleSheetsCredentialProvider;
+
+    private final ObjectProvider<SeatChangeSignaler> seatChangeSignaler;
+
     private final ApplicationProperties applicationProperties;
 
     public TemporalBootstrap(
         ApplicationProperties applicationProperties,
+        WorkflowClient workflowClient,
         WorkerFactory factory,
         KuFlowActivities kuflowActivities,
-        GSheetsActivities gSheetsActivities
+        GSheetsActivities gSheetsActivities,
+        SeatRoutes seatRoutes,
+        GoogleSheetsCredentialProvider googleSheetsCredentialProvider,
+        ObjectProvider<SeatChangeSignaler> seatChangeSignaler
     ) {
         this.applicationProperties = applicationProperties;
+        this.workflowClient = workflowClient;
         this.factory = factory;
         this.kuflowActivities = kuflowActivities;
         //and here
         this.gSheetsActivities = gSheetsActivities;
+        this.seatRoutes = seatRoutes;
+        this.googleSheetsCredentialProvider = googleSheetsCredentialProvider;
+        this.seatChangeSignaler = seatChangeSignaler;
+    }
+
+    /**
+     * Task queue of the Google Sheets activities.
+     *
+     * @param temporal temporal properties
+     * @return the configured queue, or the KuFlow queue followed by "-gsheets"
+     */
+    public static String getGoogleSheetsQueue(TemporalProperties temporal) {
+        return StringUtils.defaultIfBlank(temporal.getGoogleSheetsQueue(), temporal.getKuflowQueue() + "-gsheets");
+    }
+
+    /**
+     * Task queue of the Google Sheets activities of a route.
+     *
+     * @param temporal temporal properties
+     * @param route route key
+     * @return the Google Sheets queue followed by "-" and the route key
+     */
+    public static String getGoogleSheetsQueue(TemporalProperties temporal, String route) {
+        return getGoogleSheetsQueue(temporal) + "-" + route;
     }
 
     @Override
-    public void afterPropertiesSet() {
+    public void afterPropertiesSet() throws IOException {
+        this.warmUpGoogleSheetsCredential();
         this.startWorkers();
+        this.startSeatWaitlists();
         LOGGER.info("Temporal connection initialized");
     }
 
@@ -56,11 +134,224 @@ public class TemporalBootstrap implements InitializingBean, DisposableBean {
         LOGGER.info("Temporal connection shutdown");
     }
 
+    /**
+     * Loads the Google credential before the workers poll any activity, so the authorization, interactive or not, is
+     * never run by an activity.
+     */
+    private void warmUpGoogleSheetsCredential() throws IOException {
+        StoreProperties store = this.applicationProperties.getSeats().getStore();
+        boolean googleSheetsUsed =
+            store.getType() == StoreType.GOOGLE_SHEETS ||
+            store.isMirrorToGoogleSheets() ||
+            !this.applicationProperties.getRoutes().isEmpty();
+        if (!googleSheetsUsed) {
+            return;
+        }
+
+        this.googleSheetsCredentialProvider.warmUp();
+        LOGGER.info("Google credential loaded");
+    }
+
     private void startWorkers() {
-        Worker worker = this.factory.newWorker(this.applicationProperties.getTemporal().getKuflowQueue());
-        worker.registerWorkflowImplementationTypes(SampleWorkflowImpl.class);
-        worker.registerActivitiesImplementations(this.kuflowActivities, this.gSheetsActivities);
+        TemporalProperties temporal = this.applicationProperties.getTemporal();
+        String googleSheetsQueue = getGoogleSheetsQueue(temporal);
+        // Every configured route, its activities may be run by another process
+        Map<String, String> routeGoogleSheetsQueues = new LinkedHashMap<>();
+        for (String route : this.applicationProperties.getRoutes().keySet()) {
+            routeGoogleSheetsQueues.put(route, getGoogleSheetsQueue(temporal, route));
+        }
+
+        if (temporal.getWorkers().contains(WorkerType.KUFLOW)) {
+            LocalActivityOptions localReadOptions = createLocalReadOptions(temporal.getLocalReads());
+            Map<String, ActivityOptions> googleSheetsActivityOptions = createGoogleSheetsActivityOptions(
+                temporal.getGoogleSheetsActivities()
+            );
+            Duration waitlistTimeout = getWaitlistTimeout(temporal.getWaitlist());
+            Worker worker = this.factory.newWorker(
+                temporal.getKuflowQueue(),
+                this.createWorkerOptions(temporal.getWorker())
+            );
+            worker.addWorkflowImplementationFactory(
+                SampleWorkflow.class,
+                () ->
+                    new SampleWorkflowImpl(
+                        googleSheetsQueue,
+                        routeGoogleSheetsQueues,
+                        localReadOptions,
+                        googleSheetsActivityOptions,
+                        waitlistTimeout
+                    )
+            );
+            worker.registerWorkflowImplementationTypes(
+                SeatWaitlistWorkflowImpl.class,
+                SeatWaitlistShardWorkflowImpl.class
+            );
+            // Workflows started before the dedicated queue still schedule their Google Sheets activities here, and the
+            // local activities run here too
+            worker.registerActivitiesImplementations(this.kuflowActivities, this.gSheetsActivities);
+        }
+
+        if (temporal.getWorkers().contains(WorkerType.GOOGLE_SHEETS)) {
+            Worker worker = this.factory.newWorker(
+                googleSheetsQueue,
+                this.createWorkerOptions(temporal.getGoogleSheetsWorker())
+            );
+            worker.registerActivitiesImplementations(this.gSheetsActivities);
+
+            Set<String> googleSheetsRoutes = temporal.getGoogleSheetsRoutes();
+            for (SeatRoute route : this.seatRoutes.getRoutes()) {
+                if (googleSheetsRoutes.isEmpty() || googleSheetsRoutes.contains(route.key())) {
+                    Worker routeWorker = this.factory.newWorker(
+                        routeGoogleSheetsQueues.get(route.key()),
+                        this.createWorkerOptions(temporal.getGoogleSheetsWorker())
+                    );
+                    routeWorker.registerActivitiesImplementations(this.createRouteActivities(route));
+                }
+            }
+        }
 
         this.factory.start();
     }
+
+    /**
+     * Starts the waitlist of every route, unless it is already running, and has the seat changes of the route
+     * signaled to it.
+     */
+    private void startSeatWaitlists() {
+        TemporalProperties temporal = this.applicationProperties.getTemporal();
+        if (!temporal.getWaitlist().isEnabled() || !temporal.getWorkers().contains(WorkerType.KUFLOW)) {
+            return;
+        }
+
+        List<String> routes = new ArrayList<>();
+        routes.add(SeatLedger.DEFAULT_ROUTE);
+        routes.addAll(this.applicationProperties.getRoutes().keySet());
+        SeatChangeSignaler seatChangeSignaler = this.seatChangeSignaler.getObject();
+        for (String route : routes) {
+            String workflowId = SeatWaitlistWorkflowImpl.getWorkflowId(route);
+            SeatWaitlistWorkflow seatWaitlist = this.workflowClient.newWorkflowStub(
+                SeatWaitlistWorkflow.class,
+                WorkflowOptions.newBuilder().setWorkflowId(workflowId).setTaskQueue(temporal.getKuflowQueue()).build()
+            );
+            try {
+                WorkflowClient.start(seatWaitlist::runWaitlist, 0L, 0L, List.of(), List.of(), 0);
+                LOGGER.info("Seat waitlist of route {} started", route);
+            } catch (WorkflowExecutionAlreadyStarted e) {
+                // Started by another worker, or before this one was restarted
+            }
+
+            seatChangeSignaler.register(route, workflowId);
+        }
+    }
+
+    private GSheetsActivities createRouteActivities(SeatRoute route) {
+        GSheetsActivitiesImpl routeActivities = new GSheetsActivitiesImpl(route.seatStore(), route.seatLedger());
+        if (this.gSheetsActivities instanceof AsyncGSheetsActivitiesImpl asyncGSheetsActivities) {
+            return asyncGSheetsActivities.forRoute(routeActivities);
+        }
+
+        return routeActivities;
+    }
+
+    /**
+     * Options of the read-only Google Sheets activities run as local activities.
+     *
+     * @param localReads local reads properties
+     * @return the local activity options, or null when the reads run as regular activities
+     */
+    public static LocalActivityOptions createLocalReadOptions(LocalReadsProperties localReads) {
+        if (!localReads.isEnabled()) {
+            return null;
+        }
+
+        RetryOptions retryOptions = RetryOptions
+            .newBuilder()
+            .setInitialInterval(localReads.getInitialRetryInterval())
+            .setMaximumAttempts(localReads.getMaximumAttempts())
+            .validateBuildWithDefaults();
+
+        return LocalActivityOptions
+            .newBuilder()
+            .setStartToCloseTimeout(localReads.getStartToCloseTimeout())
+            .setScheduleToCloseTimeout(localReads.getScheduleToCloseTimeout())
+            .setLocalRetryThreshold(localReads.getLocalRetryThreshold())
+            .setRetryOptions(retryOptions)
+            .validateAndBuildWithDefaults();
+    }
+
+    /**
+     * How long the reservations that find no seats wait for one.
+     *
+     * @param waitlist waitlist properties
+     * @return the waitlist timeout, or null when the reservations are notified right away that there are no seats
+     */
+    public static Duration getWaitlistTimeout(WaitlistProperties waitlist) {
+        return waitlist.isEnabled() ? waitlist.getTimeout() : null;
+    }
+
+    /**
+     * Options of each Google Sheets activity, from its read or write profile or from its own options.
+     *
+     * @param googleSheetsActivities Google Sheets activities properties
+     * @return the options by activity type
+     */
+    public static Map<String, ActivityOptions> createGoogleSheetsActivityOptions(
+        GoogleSheetsActivitiesProperties googleSheetsActivities
+    ) {
+        Set<String> methods = new HashSet<>();
+        for (Method method : GSheetsActivities.class.getMethods()) {
+            methods.add(method.getName());
+        }
+        for (String method : googleSheetsActivities.getMethods().keySet()) {
+            if (!methods.contains(method)) {
+                throw new KuFlowEngineClientException("Unknown Google Sheets activity " + method);
+            }
+        }
+
+        Map<String, ActivityOptions> activityOptions = new HashMap<>();
+        for (String method : methods) {
+            ActivityProfileProperties profile = googleSheetsActivities.getMethods().get(method);
+            if (profile == null) {
+                profile =
+                    GOOGLE_SHEETS_WRITE_METHODS.contains(method)
+                        ? googleSheetsActivities.getWrite()
+                        : googleSheetsActivities.getRead();
+            }
+
+            activityOptions.put(
+                TemporalUtils.getActivityType(GSheetsActivities.class, method),
+                createActivityOptions(profile)
+            );
+        }
+
+        return activityOptions;
+    }
+
+    private static ActivityOptions createActivityOptions(ActivityProfileProperties profile) {
+        RetryOptions retryOptions = RetryOptions
+            .newBuilder()
+            .setInitialInterval(profile.getInitialRetryInterval())
+            .setMaximumInterval(profile.getMaximumRetryInterval())
+            .setMaximumAttempts(profile.getMaximumAttempts())
+            .validateBuildWithDefaults();
+
+        return ActivityOptions
+            .newBuilder()
+            .setStartToCloseTimeout(profile.getStartToCloseTimeout())
+            .setScheduleToCloseTimeout(profile.getScheduleToCloseTimeout())
+            .setHeartbeatTimeout(profile.getHeartbeatTimeout())
+            .setRetryOptions(retryOptions)
+            .build();
+    }
+
+    private WorkerOptions createWorkerOptions(WorkerProperties worker) {
+        return WorkerOptions
+            .newBuilder()
+            .setMaxConcurrentActivityExecutionSize(worker.getMaxConcurrentActivityExecutionSize())
+            .setMaxConcurrentWorkflowTaskExecutionSize(worker.getMaxConcurrentWorkflowTaskExecutionSize())
+            .setMaxConcurrentLocalActivityExecutionSize(worker.getMaxConcurrentLocalActivityExecutionSize())
+            .setMaxConcurrentWorkflowTaskPollers(worker.getMaxConcurrentWorkflowTaskPollers())
+            .setMaxConcurrentActivityTaskPollers(worker.getMaxConcurrentActivityTaskPollers())
+            .validateAndBuildWithDefaults();
+    }
 }
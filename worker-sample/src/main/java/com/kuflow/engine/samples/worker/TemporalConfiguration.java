@@ -10,17 +10,25 @@ import com.kuflow.engine.client.common.authorization.KuFlowAuthorizationTokenSup
 import com.kuflow.engine.client.common.error.KuFlowEngineClientException;
 import com.kuflow.engine.client.common.tracing.MDCContextPropagator;
 import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.MutualTlsProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.WorkerFactoryProperties;
+import com.kuflow.engine.samples.worker.activity.ActivityHeartbeater;
 import com.kuflow.rest.client.controller.AuthenticationApi;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.temporal.authorization.AuthorizationGrpcMetadataProvider;
 import io.temporal.client.ActivityCompletionClient;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
 import io.temporal.serviceclient.SimpleSslContextBuilder;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions.Builder;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerFactoryOptions;
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -43,6 +51,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration(proxyBeanMethods = false)
 public class TemporalConfiguration {
 
+    private static final com.uber.m3.util.Duration METRICS_REPORT_INTERVAL = com.uber.m3.util.Duration.ofSeconds(10);
+
     private final ApplicationProperties applicationProperties;
 
     private final AuthenticationApi authenticationApi;
@@ -52,9 +62,21 @@ public class TemporalConfiguration {
         this.authenticationApi = authenticationApi;
     }
 
+    /**
+     * Reports the Temporal SDK metrics (poll, schedule to start and execution latencies, slots, sticky cache...) to
+     * Micrometer.
+     */
+    @Bean(destroyMethod = "close")
+    public Scope temporalMetricsScope(MeterRegistry meterRegistry) {
+        return new RootScopeBuilder()
+            .reporter(new MicrometerClientStatsReporter(meterRegistry))
+            .reportEvery(METRICS_REPORT_INTERVAL);
+    }
+
     @Bean(destroyMethod = "shutdown")
-    public WorkflowServiceStubs workflowServiceStubs() {
+    public WorkflowServiceStubs workflowServiceStubs(Scope temporalMetricsScope) {
         Builder builder = WorkflowServiceStubsOptions.newBuilder();
+        builder.setMetricsScope(temporalMetricsScope);
         builder.setTarget(this.applicationProperties.getTemporal().getTarget());
         builder.setSslContext(this.createSslContext());
         builder.addGrpcMetadataProvider(
@@ -67,10 +89,11 @@ public class TemporalConfiguration {
     }
 
     @Bean
-    public WorkflowClient workflowClient(WorkflowServiceStubs service) {
+    public WorkflowClient workflowClient(WorkflowServiceStubs service, DataConverter temporalDataConverter) {
         WorkflowClientOptions options = WorkflowClientOptions
             .newBuilder()
             .setNamespace(this.applicationProperties.getTemporal().getNamespace())
+            .setDataConverter(temporalDataConverter)
             .setContextPropagators(Collections.singletonList(new MDCContextPropagator()))
             .build();
 
@@ -78,8 +101,16 @@ public class TemporalConfiguration {
     }
 
     @Bean
-    public WorkerFactory workerFactory(WorkflowClient workflowClient) {
-        return WorkerFactory.newInstance(workflowClient);
+    public WorkerFactory workerFactory(WorkflowClient workflowClient, ActivityHeartbeater activityHeartbeater) {
+        WorkerFactoryProperties workerFactory = this.applicationProperties.getTemporal().getWorkerFactory();
+        WorkerFactoryOptions options = WorkerFactoryOptions
+            .newBuilder()
+            .setWorkflowCacheSize(workerFactory.getWorkflowCacheSize())
+            .setMaxWorkflowThreadCount(workerFactory.getMaxWorkflowThreadCount())
+            .setWorkerInterceptors(activityHeartbeater)
+            .validateAndBuildWithDefaults();
+
+        return WorkerFactory.newInstance(workflowClient, options);
     }
 
     @Bean
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.activity;
+
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ActivityInfo;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptor;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Heartbeats on behalf of the activities scheduled with a heartbeat timeout, every half of it, while they run. The
+ * activities don't report any progress, the heartbeats only tell Temporal that the worker running them is alive, so a
+ * lost attempt is retried after the heartbeat timeout instead of the whole start to close timeout.
+ *
+ * <p>Registered as a worker interceptor, it heartbeats while the activity method runs. The activities completed
+ * asynchronously heartbeat through {@link #start(Duration, Runnable)} until they are completed.
+ */
+@Component
+public class ActivityHeartbeater extends WorkerInterceptorBase implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActivityHeartbeater.class);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "activity-heartbeater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public ActivityInboundCallsInterceptor interceptActivity(ActivityInboundCallsInterceptor next) {
+        return new HeartbeatInterceptor(next);
+    }
+
+    /**
+     * Starts heartbeating an activity.
+     *
+     * @param heartbeatTimeout heartbeat timeout of the activity, zero or null when it has none
+     * @param heartbeat sends a heartbeat, an exception stops the heartbeats
+     * @return heartbeats to cancel once the activity is completed, or null when the activity has no heartbeat timeout
+     */
+    public ScheduledFuture<?> start(Duration heartbeatTimeout, Runnable heartbeat) {
+        if (heartbeatTimeout == null || heartbeatTimeout.isZero()) {
+            return null;
+        }
+
+        long intervalMillis = Math.max(heartbeatTimeout.toMillis() / 2, 1);
+        Runnable task = () -> {
+            try {
+                heartbeat.run();
+            } catch (RuntimeException e) {
+                // The attempt has already been completed, timed out or cancelled
+                LOGGER.debug("Activity heartbeats stopped", e);
+                throw e;
+            }
+        };
+
+        return this.scheduler.scheduleAtFixedRate(task, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    private final class HeartbeatInterceptor extends ActivityInboundCallsInterceptorBase {
+
+        private ActivityExecutionContext context;
+
+        HeartbeatInterceptor(ActivityInboundCallsInterceptor next) {
+            super(next);
+        }
+
+        @Override
+        public void init(ActivityExecutionContext context) {
+            this.context = context;
+            super.init(context);
+        }
+
+        @Override
+        public ActivityOutput execute(ActivityInput input) {
+            // Local activities can't heartbeat, their attempts are bounded by their start to close timeout
+            ActivityInfo info = this.context.getInfo();
+            if (info.isLocal()) {
+                return super.execute(input);
+            }
+
+            ScheduledFuture<?> heartbeats = ActivityHeartbeater.this.start(
+                info.getHeartbeatTimeout(),
+                () -> this.context.heartbeat(null)
+            );
+            try {
+                return super.execute(input);
+            } finally {
+                if (heartbeats != null) {
+                    heartbeats.cancel(false);
+                }
+            }
+        }
+    }
+}
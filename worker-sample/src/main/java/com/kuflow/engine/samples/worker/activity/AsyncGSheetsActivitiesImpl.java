@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+package com.kuflow.engine.samples.worker.activity;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.AsyncCompletionProperties;
+import com.kuflow.engine.samples.worker.activity.resource.SeatInventoryResource;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCompletionClient;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the {@link GSheetsActivitiesImpl} calls on a dedicated I/O executor and completes the activities through
+ * the {@link ActivityCompletionClient}, so the activity executor slot is released as soon as the call is dispatched.
+ *
+ * <p>As the executor slots are released early, the worker keeps taking activities while the calls are in progress, up
+ * to the configured limit of calls in progress. The activities that find the limit reached wait for a call to
+ * complete, holding their executor slot, so once all the slots are taken the worker stops polling activities until
+ * calls complete, instead of failing them or queueing them without bound.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "application.google-sheets.async-completion", name = "enabled", havingValue = "true")
+public class AsyncGSheetsActivitiesImpl implements GSheetsActivities, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncGSheetsActivitiesImpl.class);
+
+    private final GSheetsActivitiesImpl gSheetsActivities;
+
+    private final ActivityCompletionClient activityCompletionClient;
+
+    private final ExecutorService ioExecutor;
+
+    private final Semaphore callPermits;
+
+    private final ActivityHeartbeater activityHeartbeater;
+
+    @Autowired
+    public AsyncGSheetsActivitiesImpl(
+        ApplicationProperties applicationProperties,
+        GSheetsActivitiesImpl gSheetsActivities,
+        ActivityCompletionClient activityCompletionClient,
+        ActivityHeartbeater activityHeartbeater
+    ) {
+        this(
+            gSheetsActivities,
+            activityCompletionClient,
+            newIoExecutor(applicationProperties),
+            new Semaphore(applicationProperties.getGoogleSheets().getAsyncCompletion().getMaxCallsInProgress()),
+            activityHeartbeater
+        );
+    }
+
+    private AsyncGSheetsActivitiesImpl(
+        GSheetsActivitiesImpl gSheetsActivities,
+        ActivityCompletionClient activityCompletionClient,
+        ExecutorService ioExecutor,
+        Semaphore callPermits,
+        ActivityHeartbeater activityHeartbeater
+    ) {
+        this.gSheetsActivities = gSheetsActivities;
+        this.activityCompletionClient = activityCompletionClient;
+        this.ioExecutor = ioExecutor;
+        this.callPermits = callPermits;
+        this.activityHeartbeater = activityHeartbeater;
+    }
+
+    private static ExecutorService newIoExecutor(ApplicationProperties applicationProperties) {
+        AsyncCompletionProperties asyncCompletion = applicationProperties.getGoogleSheets().getAsyncCompletion();
+        int ioThreads = asyncCompletion.getIoThreads();
+
+        // The calls in progress are bounded by the permits, so the queue never fills up
+        return IoExecutors.newIoExecutor(ioThreads, asyncCompletion.getMaxCallsInProgress(), "gsheets-io-");
+    }
+
+    /**
+     * Completes the activities of a route asynchronously too, sharing the I/O executor and the limit of calls in
+     * progress of this bean.
+     *
+     * @param routeActivities activities of the route
+     * @return asynchronous activities of the route
+     */
+    public GSheetsActivities forRoute(GSheetsActivitiesImpl routeActivities) {
+        return new AsyncGSheetsActivitiesImpl(
+            routeActivities,
+            this.activityCompletionClient,
+            this.ioExecutor,
+            this.callPermits,
+            this.activityHeartbeater
+        );
+    }
+
+    @Override
+    public List<String> readSheet() {
+        return this.completeAsync(this.gSheetsActivities::readSheet);
+    }
+
+    @Override
+    public List<String> writeSheet(String firstName, String lastName, String email) {
+        return this.completeAsync(() -> this.gSheetsActivities.writeSheet(firstName, lastName, email));
+    }
+
+    @Override
+    public String getCellValue() {
+        return this.completeAsync(this.gSheetsActivities::getCellValue);
+    }
+
+    @Override
+    public String getSeatNo() {
+        return this.completeAsync(this.gSheetsActivities::getSeatNo);
+    }
+
+    @Override
+    public SeatInventoryResource getSeatInventory() {
+        return this.completeAsync(this.gSheetsActivities::getSeatInventory);
+    }
+
+    @Override
+    public String reserveSeat(String firstName, String lastName, String email) {
+        // The attempt is read here, the activity context is not available to the I/O threads
+        GSheetsActivitiesImpl.ReservationAttempt attempt = GSheetsActivitiesImpl.ReservationAttempt.current();
+
+        return this.completeAsync(() -> this.gSheetsActivities.reserveSeat(attempt, firstName, lastName, email));
+    }
+
+    @Override
+    public void destroy() {
+        this.ioExecutor.shutdownNow();
+    }
+
+    /**
+     * Dispatches the call to the I/O pool. The value returned here is ignored by Temporal, the activity result is the
+     * one given to the completion client. Local activities can't be completed asynchronously, they run in place.
+     * Activities with a heartbeat timeout heartbeat through the completion client until they are completed, also while
+     * they wait for the limit of calls in progress.
+     */
+    private <R> R completeAsync(Supplier<R> call) {
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        if (context.getInfo().isLocal()) {
+            return call.get();
+        }
+        byte[] taskToken = context.getTaskToken();
+        String activityType = context.getInfo().getActivityType();
+
+        ScheduledFuture<?> heartbeats = this.activityHeartbeater.start(
+            context.getInfo().getHeartbeatTimeout(),
+            () -> this.activityCompletionClient.heartbeat(taskToken, null)
+        );
+        try {
+            this.callPermits.acquire();
+        } catch (InterruptedException e) {
+            // The worker is shutting down
+            this.stopHeartbeats(heartbeats);
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(e);
+        }
+        try {
+            this.ioExecutor.execute(() -> this.complete(taskToken, activityType, call, heartbeats));
+        } catch (RejectedExecutionException e) {
+            this.stopHeartbeats(heartbeats);
+            this.callPermits.release();
+            throw Activity.wrap(e);
+        }
+        context.doNotCompleteOnReturn();
+
+        return null;
+    }
+
+    private <R> void complete(byte[] taskToken, String activityType, Supplier<R> call, ScheduledFuture<?> heartbeats) {
+        try {
+            R result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                this.stopHeartbeats(heartbeats);
+                this.activityCompletionClient.completeExceptionally(taskToken, e);
+                return;
+            }
+            this.stopHeartbeats(heartbeats);
+            this.activityCompletionClient.complete(taskToken, result);
+        } catch (RuntimeException e) {
+            // The activity will be retried once its start to close timeout expires
+            LOGGER.error("Error completing activity {}", activityType, e);
+        } finally {
+            this.callPermits.release();
+        }
+    }
+
+    private void stopHeartbeats(ScheduledFuture<?> heartbeats) {
+        if (heartbeats != null) {
+            heartbeats.cancel(false);
+        }
+    }
+}
@@ -5,6 +5,7 @@
  */
 package com.kuflow.engine.samples.worker.activity;
 
+import com.kuflow.engine.samples.worker.activity.resource.SeatInventoryResource;
 import io.temporal.activity.ActivityInterface;
 import java.util.List;
 
@@ -14,4 +15,6 @@ public interface GSheetsActivities {
     List<String> writeSheet(String firstName, String lastName, String email);
     String getCellValue();
     String getSeatNo();
+    SeatInventoryResource getSeatInventory();
+    String reserveSeat(String firstName, String lastName, String email);
 }
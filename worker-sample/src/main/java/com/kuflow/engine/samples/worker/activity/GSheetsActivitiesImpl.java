@@ -5,27 +5,17 @@
  */
 package com.kuflow.engine.samples.worker.activity;
 
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
-import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.util.store.FileDataStoreFactory;
-import com.google.api.services.sheets.v4.Sheets;
-import com.google.api.services.sheets.v4.SheetsScopes;
-import com.google.api.services.sheets.v4.model.ValueRange;
-import java.io.FileNotFoundException;
+import com.kuflow.engine.samples.worker.activity.resource.SeatInventoryResource;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import com.kuflow.engine.samples.worker.seat.SeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatStoreFullException;
+import com.kuflow.engine.samples.worker.seat.SeatStoreSnapshot;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityInfo;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.security.GeneralSecurityException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -35,126 +25,40 @@ public class GSheetsActivitiesImpl implements GSheetsActivities {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GSheetsActivitiesImpl.class);
 
-    private static final String APPLICATION_NAME = "Google Sheets API Java Quickstart";
-    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
-    private static final String TOKENS_DIRECTORY_PATH = "tokens";
+    private final SeatStore seatStore;
 
-    /**
-     * Global instance of the scopes required by this quickstart.
-     * If modifying these scopes, delete your previously saved tokens/ folder.
-     */
-    private static final List<String> SCOPES = Collections.singletonList(SheetsScopes.SPREADSHEETS);
-    private static final String CREDENTIALS_FILE_PATH = "/credentials.json";
+    private final SeatLedger seatLedger;
 
-    public static final String SPREAD_SHEET_ID = "1N4TzejQ4pjEdb2IJbvah8pnoHx1TWYKn_jP6h42-jHE";
-    public static final String SHEET_NAME = "BUS!";
-
-    /**
-     * Creates an authorized Credential object.
-     * @param httpTransport The network HTTP Transport.
-     * @return An authorized Credential object.
-     * @throws IOException If the credentials.json file cannot be found.
-     */
-    private static Credential getCredentials(final NetHttpTransport httpTransport) throws IOException {
-        // Load client secrets.
-        try (InputStream in = GSheetsActivitiesImpl.class.getResourceAsStream(CREDENTIALS_FILE_PATH)) {
-            if (in == null) {
-                throw new FileNotFoundException("Resource not found: " + CREDENTIALS_FILE_PATH);
-            }
-            GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
-
-            // Build flow and trigger user authorization request.
-            GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport,
-                JSON_FACTORY,
-                clientSecrets,
-                SCOPES
-            )
-                .setDataStoreFactory(new FileDataStoreFactory(new java.io.File(TOKENS_DIRECTORY_PATH)))
-                .setAccessType("offline")
-                .build();
-
-            LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(8888).build();
-
-            return new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
-        }
+    public GSheetsActivitiesImpl(SeatStore seatStore, SeatLedger seatLedger) {
+        this.seatStore = seatStore;
+        this.seatLedger = seatLedger;
     }
 
     @Override
     public List<String> readSheet() {
-        StringBuilder tableData = new StringBuilder();
-        String textFormat = "|%-15s";
-        NetHttpTransport HTTP_TRANSPORT;
+        List<List<Object>> seatTable;
         try {
-            HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-            final String range = SHEET_NAME + "A1:D2";
-            Sheets service = new Sheets.Builder(HTTP_TRANSPORT, JSON_FACTORY, getCredentials(HTTP_TRANSPORT))
-                .setApplicationName(APPLICATION_NAME)
-                .build();
-            ValueRange response = service.spreadsheets().values().get(SPREAD_SHEET_ID, range).execute();
-
-            List<List<Object>> values = response.getValues();
-
-            if (values == null || values.isEmpty()) {
-                System.out.println("No data found.");
-            } else {
-                for (List<Object> row : values) {
-                    // Assign data from columns A to D, which correspond to the bus/schedule/Seat table.
-                    tableData
-                        .append(String.format(textFormat, row.get(0)))
-                        .append(String.format(textFormat, row.get(1)))
-                        .append(String.format(textFormat, row.get(2)))
-                        .append(String.format(textFormat, row.get(3)))
-                        .append(" | \r\n");
-
-                    //Print for console feedback
-                    LOGGER.info(
-                        String.format(
-                            "|%1$-12s|%2$-10s|%3$-20s|%4$-20s\n",
-                            row.get(0),
-                            row.get(1),
-                            row.get(2),
-                            row.get(3)
-                        )
-                    );
-                }
-            }
-        } catch (GeneralSecurityException | IOException e) {
-            LOGGER.error("Error reading sheet", e);
+            seatTable = this.seatStore.getSeatTable();
+        } catch (IOException e) {
+            // Failed so Temporal retries it, the quota errors are transient
+            throw Activity.wrap(e);
         }
         //Add html tags for KuFlow UI Showing
-        tableData = new StringBuilder("<pre>" + tableData + "</pre>");
-
-        return List.of(tableData.toString());
+        return List.of(this.renderSeatTable(seatTable));
     }
 
     @Override
     public List<String> writeSheet(String firstName, String lastName, String email) {
         try {
-            final NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            String range = SHEET_NAME + "A5:C5";
-            Sheets service = new Sheets.Builder(httpTransport, JSON_FACTORY, getCredentials(httpTransport))
-                .setApplicationName(APPLICATION_NAME)
-                .build();
-
             //Complete variables and write it in the last row of the spreadsheet
             List<Object> data1 = new ArrayList<>();
             data1.add(firstName);
             data1.add(lastName);
             data1.add(email);
 
-            List<List<Object>> data = new ArrayList<>();
-            data.add(data1);
-            ValueRange valueRange = new ValueRange();
-            valueRange.setValues(data);
-            service
-                .spreadsheets()
-                .values()
-                .append(SPREAD_SHEET_ID, range, valueRange)
-                .setValueInputOption("USER_ENTERED")
-                .execute();
-        } catch (GeneralSecurityException | IOException e) {
-            LOGGER.error("Error writing sheet", e);
+            this.seatStore.appendReservation(null, data1);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
         }
 
         //Print for console feedback
@@ -167,54 +71,131 @@ public class GSheetsActivitiesImpl implements GSheetsActivities {
 
     @Override
     public String getCellValue() {
-        String range = SHEET_NAME + "D2";
+        try {
+            return this.seatStore.getSeatsAvailable();
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+    }
+
+    @Override
+    public String getSeatNo() {
+        try {
+            //Count the amount of rows occupied
+            return String.valueOf(this.seatStore.getOccupiedSeats());
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+    }
 
-        String cellValue = "";
+    @Override
+    public SeatInventoryResource getSeatInventory() {
+        SeatStoreSnapshot snapshot;
         try {
-            NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            snapshot = this.seatStore.getSnapshot();
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
 
-            Sheets service = new Sheets.Builder(httpTransport, JSON_FACTORY, getCredentials(httpTransport))
-                .setApplicationName(APPLICATION_NAME)
-                .build();
+        SeatInventoryResource seatInventory = new SeatInventoryResource();
+        seatInventory.setSeatsAvailable(snapshot.seatsAvailable());
+        seatInventory.setSeatTable(this.renderSeatTable(snapshot.seatTable()));
+        seatInventory.setOccupiedSeats(snapshot.occupiedSeats());
 
-            ValueRange response = service.spreadsheets().values().get(SPREAD_SHEET_ID, range).execute();
+        return seatInventory;
+    }
 
-            List<List<Object>> values = response.getValues();
-            if (values == null || values.isEmpty()) {
-                System.out.println("No data found.");
-            } else {
-                for (List<Object> row : values) {
-                    cellValue = (String) row.get(0);
+    @Override
+    public String reserveSeat(String firstName, String lastName, String email) {
+        return this.reserveSeat(ReservationAttempt.current(), firstName, lastName, email);
+    }
+
+    /**
+     * Reserves a seat once, however many times the activity is attempted. The retried attempts look up the reservation
+     * first, as a previous attempt may have written it and failed afterwards.
+     *
+     * @param attempt attempt of the activity
+     * @param firstName first name of the passenger
+     * @param lastName last name of the passenger
+     * @param email email of the passenger
+     * @return seat number, or null if the bus is full
+     */
+    String reserveSeat(ReservationAttempt attempt, String firstName, String lastName, String email) {
+        String reservationId = attempt.reservationId();
+        try {
+            if (attempt.retried()) {
+                OptionalInt seatNo = this.seatStore.findReservation(reservationId);
+                if (seatNo.isPresent()) {
+                    LOGGER.info("Seat {} already reserved for {} {}", seatNo.getAsInt(), firstName, lastName);
+                    return String.valueOf(seatNo.getAsInt());
                 }
             }
-        } catch (GeneralSecurityException | IOException e) {
-            LOGGER.error("Error getting cell value", e);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
         }
 
-        return cellValue;
-    }
-
-    @Override
-    public String getSeatNo() {
-        String range = SHEET_NAME + "B5:B116";
+        if (!this.seatLedger.hold(reservationId)) {
+            LOGGER.info("No seats available for {} {}", firstName, lastName);
+            return null;
+        }
 
-        // Declare a variable for the seat number
-        String seatNo = "";
+        int seatNo;
         try {
-            NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            seatNo = this.seatStore.appendReservation(reservationId, List.of(firstName, lastName, email));
+        } catch (SeatStoreFullException e) {
+            // Other workers writing the same store took the last seats, the ledger is full until reconciled
+            this.seatLedger.cancel(reservationId);
+            this.seatLedger.reconcile(this.seatLedger.getCapacity());
+            LOGGER.info("No seats available for {} {}: {}", firstName, lastName, e.getMessage());
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // The response may have been lost after writing it, the seat is only given back if it was not written
+            if (this.isWritten(reservationId)) {
+                this.seatLedger.confirm(reservationId);
+            } else {
+                this.seatLedger.cancel(reservationId);
+            }
+            throw Activity.wrap(e);
+        }
+        this.seatLedger.confirm(reservationId);
 
-            Sheets service = new Sheets.Builder(httpTransport, JSON_FACTORY, getCredentials(httpTransport))
-                .setApplicationName(APPLICATION_NAME)
-                .build();
+        LOGGER.info("Seat {} reserved for {} {}", seatNo, firstName, lastName);
 
-            ValueRange response = service.spreadsheets().values().get(SPREAD_SHEET_ID, range).execute();
+        return String.valueOf(seatNo);
+    }
 
-            //Count the amount of rows occupied
-            seatNo = String.valueOf(response.getValues().size());
-        } catch (GeneralSecurityException | IOException e) {
-            LOGGER.error("Error getting seat number", e);
+    /**
+     * Attempt of a reservation activity, taken from the activity thread.
+     *
+     * @param reservationId the same for all the attempts of the activity, and unique among all the reservations
+     * @param retried true if a previous attempt of the activity failed
+     */
+    record ReservationAttempt(String reservationId, boolean retried) {
+        static ReservationAttempt current() {
+            ActivityInfo info = Activity.getExecutionContext().getInfo();
+
+            return new ReservationAttempt(info.getRunId() + "/" + info.getActivityId(), info.getAttempt() > 1);
         }
+    }
+
+    private boolean isWritten(String reservationId) {
+        try {
+            return this.seatStore.findReservation(reservationId).isPresent();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to find out whether reservation {} was written", reservationId, e);
+            // Given back, the next reconciliation with the store counts it again if it was written
+            return false;
+        }
+    }
+
+    private String renderSeatTable(List<List<Object>> values) {
+        if (values == null || values.isEmpty()) {
+            LOGGER.info("No data found.");
+        }
+
+        String seatTable = SeatTableRenderer.render(values);
+        LOGGER.debug("Seat table read: {}", seatTable);
 
-        return seatNo;
+        return seatTable;
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+package com.kuflow.engine.samples.worker.activity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors running blocking I/O calls.
+ */
+public final class IoExecutors {
+
+    private IoExecutors() {}
+
+    /**
+     * Creates a fixed pool of daemon threads named after the given prefix. The tasks that find all the threads busy
+     * wait in a bounded queue, and those that find the queue full are rejected with a
+     * {@link RejectedExecutionException} instead of piling up.
+     *
+     * @param threads size of the pool
+     * @param maxQueuedTasks tasks waiting for a thread at most
+     * @param threadNamePrefix prefix of the thread names
+     * @return the executor
+     */
+    public static ExecutorService newIoExecutor(int threads, int maxQueuedTasks, String threadNamePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxQueuedTasks),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+package com.kuflow.engine.samples.worker.activity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders the seats table shown in the "seats" element of the reservation form, as a preformatted HTML block with
+ * the columns A to D of every row left aligned and padded to {@value #COLUMN_WIDTH} characters:
+ *
+ * <pre>
+ * &lt;pre&gt;|Bus            |Schedule       |Seats          |Seats Available | \r\n...&lt;/pre&gt;
+ * </pre>
+ *
+ * The output buffer is sized from the number of rows and the cells are padded by hand, so a seat map of thousands
+ * of rows is rendered in a single pass without intermediate strings.
+ */
+public final class SeatTableRenderer {
+
+    private static final int COLUMN_WIDTH = 15;
+
+    private static final int COLUMNS = 4;
+
+    private static final String TABLE_START = "<pre>";
+
+    private static final String TABLE_END = "</pre>";
+
+    private static final String COLUMN_SEPARATOR = "|";
+
+    private static final String ROW_END = " | \r\n";
+
+    private static final int ROW_LENGTH = COLUMNS * (COLUMN_SEPARATOR.length() + COLUMN_WIDTH) + ROW_END.length();
+
+    private static final char[] PADDING = new char[COLUMN_WIDTH];
+
+    static {
+        Arrays.fill(PADDING, ' ');
+    }
+
+    private SeatTableRenderer() {}
+
+    /**
+     * @param rows rows read from the sheet, may be null
+     * @return seats table wrapped in {@code <pre>} tags
+     */
+    public static String render(List<List<Object>> rows) {
+        int rowCount = rows != null ? rows.size() : 0;
+        StringBuilder output = new StringBuilder(TABLE_START.length() + rowCount * ROW_LENGTH + TABLE_END.length());
+
+        output.append(TABLE_START);
+        appendRows(output, rows);
+        output.append(TABLE_END);
+
+        return output.toString();
+    }
+
+    /**
+     * Appends the rows to an existing buffer, without the {@code <pre>} tags.
+     *
+     * @param output buffer to append to
+     * @param rows rows read from the sheet, may be null
+     */
+    public static void appendRows(StringBuilder output, List<List<Object>> rows) {
+        if (rows == null) {
+            return;
+        }
+
+        output.ensureCapacity(output.length() + rows.size() * ROW_LENGTH);
+        for (List<Object> row : rows) {
+            appendRow(output, row);
+        }
+    }
+
+    private static void appendRow(StringBuilder output, List<Object> row) {
+        // The API omits the trailing empty cells, they are rendered as blanks
+        int cells = Math.min(row.size(), COLUMNS);
+        for (int column = 0; column < COLUMNS; column++) {
+            output.append(COLUMN_SEPARATOR);
+            if (column < cells) {
+                appendCell(output, String.valueOf(row.get(column)));
+            } else {
+                output.append(PADDING);
+            }
+        }
+        output.append(ROW_END);
+    }
+
+    private static void appendCell(StringBuilder output, String value) {
+        // Longer values are not truncated, as with String.format("%-15s")
+        output.append(value);
+        int padding = COLUMN_WIDTH - value.length();
+        if (padding > 0) {
+            output.append(PADDING, 0, padding);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+package com.kuflow.engine.samples.worker.activity.resource;
+
+/**
+ * Snapshot of the bus seats read from the spreadsheet in a single request.
+ */
+public class SeatInventoryResource {
+
+    /**
+     * Value of the "available seats" cell.
+     */
+    private String seatsAvailable;
+
+    /**
+     * Bus/schedule/seats table, formatted to be shown in the KuFlow UI.
+     */
+    private String seatTable;
+
+    /**
+     * Number of seats already reserved.
+     */
+    private int occupiedSeats;
+
+    public String getSeatsAvailable() {
+        return this.seatsAvailable;
+    }
+
+    public void setSeatsAvailable(String seatsAvailable) {
+        this.seatsAvailable = seatsAvailable;
+    }
+
+    public String getSeatTable() {
+        return this.seatTable;
+    }
+
+    public void setSeatTable(String seatTable) {
+        this.seatTable = seatTable;
+    }
+
+    public int getOccupiedSeats() {
+        return this.occupiedSeats;
+    }
+
+    public void setOccupiedSeats(int occupiedSeats) {
+        this.occupiedSeats = occupiedSeats;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties.ClaimCheckProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Moves the payloads that reach the configured size to a {@link PayloadStore}, leaving in the history a reference
+ * payload tagged with the {@code binary/claim-check} encoding whose data is the key of the stored payload. Keys are
+ * the SHA-256 of the payload, so the workflows store the same key when they are replayed.
+ *
+ * <p>The payloads stored or read recently are kept in memory, bounded by size, so the workflows replayed from the
+ * sticky cache misses don't read them again. Hits and misses are published as the {@code cache.gets} metric.
+ *
+ * <p>Without a store, when the claim check is disabled, the payloads stay in the history, and reading a reference
+ * fails.
+ */
+public class ClaimCheckPayloadCodec implements PayloadCodec {
+
+    public static final String ENCODING_TYPE = "binary/claim-check";
+
+    private static final ByteString ENCODING = ByteString.copyFromUtf8(ENCODING_TYPE);
+
+    private static final String CACHE_NAME = "temporal.payloads";
+
+    private final PayloadStore payloadStore;
+
+    private final boolean enabled;
+
+    private final long threshold;
+
+    private final Cache<String, Payload> cache;
+
+    /**
+     * @param payloadStore store of the payloads, or null if the claim check is disabled
+     * @param claimCheck claim check settings
+     * @param meterRegistry registry of the cache metrics
+     */
+    public ClaimCheckPayloadCodec(
+        PayloadStore payloadStore,
+        ClaimCheckProperties claimCheck,
+        MeterRegistry meterRegistry
+    ) {
+        this.payloadStore = payloadStore;
+        this.enabled = payloadStore != null && claimCheck.isEnabled();
+        this.threshold = claimCheck.getThreshold().toBytes();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(claimCheck.getCacheMaxSize().toBytes())
+                .<String, Payload>weigher((key, payload) -> payload.getSerializedSize())
+                .expireAfterAccess(claimCheck.getCacheTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    }
+
+    @Override
+    public Payload encode(Payload payload) {
+        if (!this.enabled || payload.getSerializedSize() < this.threshold) {
+            return payload;
+        }
+
+        byte[] data = payload.toByteArray();
+        String key = this.key(data);
+        try {
+            this.payloadStore.put(key, data);
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+        this.cache.put(key, payload);
+
+        return Payload
+            .newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING)
+            .setData(ByteString.copyFromUtf8(key))
+            .build();
+    }
+
+    @Override
+    public Payload decode(Payload payload) {
+        ByteString encoding = payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, ByteString.EMPTY);
+        if (!encoding.equals(ENCODING)) {
+            return payload;
+        }
+        if (this.payloadStore == null) {
+            throw new DataConverterException("The payload was moved to the claim check store, which is disabled", null);
+        }
+
+        try {
+            return this.cache.get(payload.getData().toStringUtf8(), this::load);
+        } catch (UncheckedIOException e) {
+            throw new DataConverterException(e.getCause());
+        }
+    }
+
+    private Payload load(String key) {
+        try {
+            return Payload.parseFrom(this.payloadStore.get(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String key(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the payloads written by another data converter through a chain of {@link PayloadCodec}s, in order when
+ * writing and in reverse order when reading, and publishes the size of every payload written as the
+ * {@code temporal.payload.size} metric, tagged by encoding and by the codec that transformed it last.
+ *
+ * <p>Every codec leaves untouched the payloads it didn't transform, so the histories written before enabling a codec
+ * are still readable.
+ */
+public class CodecDataConverter implements DataConverter {
+
+    private final DataConverter delegate;
+
+    private final List<PayloadCodec> codecs;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<PayloadSizeTags, DistributionSummary> payloadSizes = new ConcurrentHashMap<>();
+
+    public CodecDataConverter(DataConverter delegate, List<PayloadCodec> codecs, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.codecs = List.copyOf(codecs);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> Optional<Payload> toPayload(T value) {
+        return this.delegate.toPayload(value).map(this::encode);
+    }
+
+    @Override
+    public <T> T fromPayload(Payload payload, Class<T> valueClass, Type valueType) {
+        return this.delegate.fromPayload(this.decode(payload), valueClass, valueType);
+    }
+
+    @Override
+    public Optional<Payloads> toPayloads(Object... values) throws DataConverterException {
+        Optional<Payloads> payloads = this.delegate.toPayloads(values);
+        if (payloads.isEmpty()) {
+            return payloads;
+        }
+
+        Payloads.Builder builder = Payloads.newBuilder();
+        for (Payload payload : payloads.get().getPayloadsList()) {
+            builder.addPayloads(this.encode(payload));
+        }
+
+        return Optional.of(builder.build());
+    }
+
+    @Override
+    public <T> T fromPayloads(int index, Optional<Payloads> content, Class<T> valueClass, Type valueType)
+        throws DataConverterException {
+        if (content.isEmpty() || index >= content.get().getPayloadsCount()) {
+            // Missing values are resolved to their defaults by the wrapped converter
+            return this.delegate.fromPayloads(index, content, valueClass, valueType);
+        }
+
+        return this.fromPayload(content.get().getPayloads(index), valueClass, valueType);
+    }
+
+    private Payload encode(Payload payload) {
+        Payload encoded = payload;
+        String codec = "none";
+        for (PayloadCodec payloadCodec : this.codecs) {
+            Payload next = payloadCodec.encode(encoded);
+            if (next != encoded) {
+                codec = this.getEncoding(next);
+                encoded = next;
+            }
+        }
+
+        PayloadSizeTags tags = new PayloadSizeTags(this.getEncoding(payload), codec);
+        this.payloadSizes.computeIfAbsent(tags, this::registerPayloadSize).record(encoded.getSerializedSize());
+
+        return encoded;
+    }
+
+    private DistributionSummary registerPayloadSize(PayloadSizeTags tags) {
+        return DistributionSummary
+            .builder("temporal.payload.size")
+            .description("Size of the payloads written to the workflow histories")
+            .baseUnit("bytes")
+            .tag("encoding", tags.encoding())
+            .tag("codec", tags.codec())
+            .register(this.meterRegistry);
+    }
+
+    private Payload decode(Payload payload) {
+        Payload decoded = payload;
+        for (int i = this.codecs.size() - 1; i >= 0; i--) {
+            decoded = this.codecs.get(i).decode(decoded);
+        }
+
+        return decoded;
+    }
+
+    private String getEncoding(Payload payload) {
+        return payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, ByteString.EMPTY).toStringUtf8();
+    }
+
+    private record PayloadSizeTags(String encoding, String codec) {}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps each payload in its own file of a local directory, spread across subdirectories named after the first
+ * characters of the key. All the workers must share the directory, so it suits a single host or a shared volume.
+ *
+ * <p>The payloads are deleted once they have been neither stored nor read for the retention, checked periodically.
+ * Storing a payload again, as the workflows do when they send the same value, or reading it, as they do when they are
+ * replayed, keeps it for another retention.
+ */
+public class FileSystemPayloadStore implements PayloadStore, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemPayloadStore.class);
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int SUBDIRECTORY_LENGTH = 2;
+
+    private final Path directory;
+
+    private final Duration retention;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payload-store-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param directory directory shared by all the workers, created if missing
+     * @param retention how long the payloads are kept since they were last stored or read
+     * @param cleanupInterval how often the expired payloads are deleted
+     * @throws IOException if the directory cannot be created or written, so the worker fails on start instead of on
+     *     the first large payload
+     */
+    public FileSystemPayloadStore(Path directory, Duration retention, Duration cleanupInterval) throws IOException {
+        this.directory = directory;
+        this.retention = retention;
+
+        Files.createDirectories(directory);
+        if (!Files.isWritable(directory)) {
+            throw new IOException("The payload store directory is not writable: " + directory);
+        }
+
+        long intervalMillis = cleanupInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::cleanUp, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        Path file = this.resolve(key);
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return;
+        } catch (NoSuchFileException e) {
+            // Not stored yet, or deleted meanwhile
+        }
+
+        // Written aside and moved, so a payload being written is never read half done
+        Files.createDirectories(file.getParent());
+        Path temporaryFile = Files.createTempFile(file.getParent(), key, ".tmp");
+        try {
+            Files.write(temporaryFile, data);
+            Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        Path file = this.resolve(key);
+        byte[] data = Files.readAllBytes(file);
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            // Deleted meanwhile, it was read anyway
+        }
+
+        return data;
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Deletes the payloads neither stored nor read for the retention, and the files left aside by the writes that never
+     * finished.
+     *
+     * @return files deleted
+     * @throws IOException if the directory cannot be read
+     */
+    int deleteExpired() throws IOException {
+        FileTime expiration = FileTime.from(Instant.now().minus(this.retention));
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(this.directory, 2)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(expiration) < 0 && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Deleted meanwhile by another worker
+                }
+            }
+        }
+
+        return deleted;
+    }
+
+    private void cleanUp() {
+        try {
+            int deleted = this.deleteExpired();
+            LOGGER.info("{} expired payloads deleted from {}", deleted, this.directory);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error deleting the expired payloads from {}", this.directory, e);
+        }
+    }
+
+    private Path resolve(String key) throws IOException {
+        // Keys come from the histories, so anything but a SHA-256 could point outside the directory
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IOException("Invalid payload key: " + key);
+        }
+
+        return this.directory.resolve(key.substring(0, SUBDIRECTORY_LENGTH)).resolve(key);
+    }
+}
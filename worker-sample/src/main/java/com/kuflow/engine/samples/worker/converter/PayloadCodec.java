@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import io.temporal.api.common.v1.Payload;
+
+/**
+ * Transforms the payloads already encoded by the data converter before they are written to the workflow history, and
+ * back when they are read, as the codecs of the newer Temporal SDKs do.
+ */
+public interface PayloadCodec {
+    /**
+     * @param payload payload as written by the data converter or the previous codec
+     * @return the transformed payload, or the same one when this codec doesn't apply to it
+     */
+    Payload encode(Payload payload);
+
+    /**
+     * @param payload payload as read from the history or returned by the next codec
+     * @return the original payload, or the same one when it wasn't transformed by this codec
+     */
+    Payload decode(Payload payload);
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import com.kuflow.engine.client.common.error.KuFlowEngineClientException;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties.ClaimCheckProperties;
+import com.kuflow.engine.samples.worker.SampleWorkflowImpl;
+import com.kuflow.engine.samples.worker.TemporalBootstrap;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.temporal.api.workflowservice.v1.DescribeNamespaceRequest;
+import io.temporal.common.converter.ByteArrayPayloadConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.NullPayloadConverter;
+import io.temporal.common.converter.ProtobufJsonPayloadConverter;
+import io.temporal.common.converter.ProtobufPayloadConverter;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Builds the data converter of the Temporal client and workers from {@code application.temporal.payloads}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class PayloadConverterConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadConverterConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    public PayloadConverterConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.temporal.payloads.claim-check", name = "enabled", havingValue = "true")
+    public PayloadStore payloadStore(WorkflowServiceStubs workflowServiceStubs) throws IOException {
+        ClaimCheckProperties claimCheck = this.applicationProperties.getTemporal().getPayloads().getClaimCheck();
+        // A directory local to this worker would leave the payloads out of reach of the others
+        if (!StringUtils.hasText(claimCheck.getDirectory())) {
+            throw new KuFlowEngineClientException("The claim check requires a directory shared by all the workers");
+        }
+
+        return new FileSystemPayloadStore(
+            Path.of(claimCheck.getDirectory()),
+            this.getRetention(workflowServiceStubs, claimCheck),
+            claimCheck.getCleanupInterval()
+        );
+    }
+
+    /**
+     * Retention of the stored payloads. A payload may be read as long as a history that refers to it is read: until
+     * the longest reservation is closed, and then for the retention of the closed workflows of the namespace.
+     *
+     * @param workflowServiceStubs service to read the namespace from
+     * @param claimCheck claim check properties
+     * @return the configured retention, or the shortest one that keeps the payloads of every history
+     * @throws KuFlowEngineClientException if the configured retention is shorter, or it is not configured and the
+     *     namespace cannot be read
+     */
+    private Duration getRetention(WorkflowServiceStubs workflowServiceStubs, ClaimCheckProperties claimCheck) {
+        TemporalProperties temporal = this.applicationProperties.getTemporal();
+        Duration waitlistTimeout = TemporalBootstrap.getWaitlistTimeout(temporal.getWaitlist());
+        Duration longestRun = SampleWorkflowImpl.getLongestRun(waitlistTimeout);
+
+        Duration namespaceRetention;
+        try {
+            com.google.protobuf.Duration retentionTtl = workflowServiceStubs
+                .blockingStub()
+                .describeNamespace(DescribeNamespaceRequest.newBuilder().setNamespace(temporal.getNamespace()).build())
+                .getConfig()
+                .getWorkflowExecutionRetentionTtl();
+            namespaceRetention = Duration.ofSeconds(retentionTtl.getSeconds(), retentionTtl.getNanos());
+        } catch (StatusRuntimeException e) {
+            if (claimCheck.getRetention() == null) {
+                throw new KuFlowEngineClientException(
+                    "The retention of the namespace could not be read, set the retention of the claim check",
+                    e
+                );
+            }
+            LOGGER.warn("The retention of the namespace could not be read, the configured one is not checked");
+            return claimCheck.getRetention();
+        }
+
+        Duration minimumRetention = longestRun.plus(namespaceRetention);
+        if (claimCheck.getRetention() == null) {
+            return minimumRetention;
+        }
+        if (claimCheck.getRetention().compareTo(minimumRetention) < 0) {
+            throw new KuFlowEngineClientException(
+                String.format(
+                    "The retention of the claim check must be at least %s, the longest reservation %s plus the " +
+                    "retention of the namespace %s",
+                    minimumRetention,
+                    longestRun,
+                    namespaceRetention
+                )
+            );
+        }
+
+        return claimCheck.getRetention();
+    }
+
+    @Bean
+    public DataConverter temporalDataConverter(MeterRegistry meterRegistry, ObjectProvider<PayloadStore> payloadStore) {
+        PayloadsProperties payloads = this.applicationProperties.getTemporal().getPayloads();
+
+        // Values are written with the first converter that accepts them, and read with the one of their encoding, so
+        // both JSON and Smile are kept to read the payloads written before switching the encoding
+        DataConverter dataConverter =
+            switch (payloads.getEncoding()) {
+                case JSON -> new DefaultDataConverter(
+                    new NullPayloadConverter(),
+                    new ByteArrayPayloadConverter(),
+                    new ProtobufJsonPayloadConverter(),
+                    new ProtobufPayloadConverter(),
+                    new JacksonJsonPayloadConverter(),
+                    new SmilePayloadConverter()
+                );
+                case SMILE -> new DefaultDataConverter(
+                    new NullPayloadConverter(),
+                    new ByteArrayPayloadConverter(),
+                    new ProtobufJsonPayloadConverter(),
+                    new ProtobufPayloadConverter(),
+                    new SmilePayloadConverter(),
+                    new JacksonJsonPayloadConverter()
+                );
+            };
+
+        // The codecs are always in place to read the payloads written while they were enabled. Payloads are compressed
+        // first, so only those still large once compressed are moved to the store.
+        List<PayloadCodec> codecs = List.of(
+            new ZlibPayloadCodec(payloads),
+            new ClaimCheckPayloadCodec(payloadStore.getIfAvailable(), payloads.getClaimCheck(), meterRegistry)
+        );
+
+        return new CodecDataConverter(dataConverter, codecs, meterRegistry);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import java.io.IOException;
+
+/**
+ * Storage of the payloads moved out of the workflow histories by the {@link ClaimCheckPayloadCodec}. Every worker
+ * that runs the workflows or the activities must reach the same store.
+ */
+public interface PayloadStore {
+    /**
+     * Stores a payload. Keys are derived from the payload content, so storing a key again, as replaying workflows do,
+     * stores the same data and can be skipped.
+     *
+     * @param key payload key
+     * @param data serialized payload
+     * @throws IOException if the payload could not be stored
+     */
+    void put(String key, byte[] data) throws IOException;
+
+    /**
+     * Reads a payload.
+     *
+     * @param key payload key
+     * @return serialized payload
+     * @throws IOException if the payload is missing or the store cannot be read
+     */
+    byte[] get(String key) throws IOException;
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.PayloadConverter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Encodes the values as Smile, the binary counterpart of JSON in Jackson. The object mapper is configured as the one
+ * of the Temporal JSON converter, so every value that can be written as JSON is written as Smile the same way, with
+ * shorter field names and numbers and no quoting.
+ */
+public class SmilePayloadConverter implements PayloadConverter {
+
+    public static final String ENCODING_TYPE = "binary/jackson-smile";
+
+    private static final ByteString ENCODING = ByteString.copyFromUtf8(ENCODING_TYPE);
+
+    private final ObjectMapper mapper;
+
+    public SmilePayloadConverter() {
+        this.mapper = new SmileMapper();
+        this.mapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
+        this.mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.mapper.registerModule(new JavaTimeModule());
+        this.mapper.registerModule(new Jdk8Module());
+        this.mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    @Override
+    public String getEncodingType() {
+        return ENCODING_TYPE;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) throws DataConverterException {
+        try {
+            byte[] data = this.mapper.writeValueAsBytes(value);
+
+            return Optional.of(
+                Payload
+                    .newBuilder()
+                    .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING)
+                    .setData(ByteString.copyFrom(data))
+                    .build()
+            );
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) throws DataConverterException {
+        ByteString data = content.getData();
+        if (data.isEmpty()) {
+            return null;
+        }
+
+        try {
+            JavaType type = this.mapper.getTypeFactory().constructType(valueType, valueClass);
+
+            return this.mapper.readValue(data.newInput(), type);
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import com.google.protobuf.ByteString;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses with zlib the payloads that reach the configured size. A compressed payload is the whole original
+ * payload, metadata included, deflated and tagged with the {@code binary/zlib} encoding, as the zlib codec of the
+ * Temporal SDKs does. Payloads that don't shrink are written as they are. Compressed payloads are read even when the
+ * compression is disabled.
+ */
+public class ZlibPayloadCodec implements PayloadCodec {
+
+    public static final String ENCODING_TYPE = "binary/zlib";
+
+    private static final ByteString ENCODING = ByteString.copyFromUtf8(ENCODING_TYPE);
+
+    private final boolean enabled;
+
+    private final long threshold;
+
+    public ZlibPayloadCodec(PayloadsProperties payloads) {
+        this.enabled = payloads.isCompressionEnabled();
+        this.threshold = payloads.getCompressionThreshold().toBytes();
+    }
+
+    @Override
+    public Payload encode(Payload payload) {
+        if (!this.enabled || payload.getSerializedSize() < this.threshold) {
+            return payload;
+        }
+
+        ByteString data = this.compress(payload);
+        if (data.size() >= payload.getSerializedSize()) {
+            return payload;
+        }
+
+        return Payload.newBuilder().putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING).setData(data).build();
+    }
+
+    @Override
+    public Payload decode(Payload payload) {
+        ByteString encoding = payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, ByteString.EMPTY);
+        if (!encoding.equals(ENCODING)) {
+            return payload;
+        }
+
+        try (InputStream inputStream = new InflaterInputStream(payload.getData().newInput())) {
+            return Payload.parseFrom(inputStream);
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+
+    private ByteString compress(Payload payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteString.Output output = ByteString.newOutput(payload.getSerializedSize() / 2);
+        try (OutputStream outputStream = new DeflaterOutputStream(output, deflater)) {
+            payload.writeTo(outputStream);
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        } finally {
+            deflater.end();
+        }
+
+        return output.toByteString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Base of the stores kept by the worker itself, where the bus billboard is built from the configuration.
+ */
+public abstract class AbstractLocalSeatStore implements SeatStore {
+
+    private static final List<Object> SEAT_TABLE_HEADER = List.of("Bus", "Schedule", "Seats", "Seats Available");
+
+    private final String bus;
+
+    private final String schedule;
+
+    private final int capacity;
+
+    protected AbstractLocalSeatStore(SeatsProperties seatsProperties) {
+        this.bus = seatsProperties.getBus();
+        this.schedule = seatsProperties.getSchedule();
+        this.capacity = seatsProperties.getCapacity();
+    }
+
+    @Override
+    public String getSeatsAvailable() throws IOException {
+        return this.computeSeatsAvailable(this.getOccupiedSeats());
+    }
+
+    @Override
+    public List<List<Object>> getSeatTable() throws IOException {
+        return this.buildSeatTable(this.getOccupiedSeats());
+    }
+
+    @Override
+    public SeatStoreSnapshot getSnapshot() throws IOException {
+        int occupiedSeats = this.getOccupiedSeats();
+
+        return new SeatStoreSnapshot(
+            this.computeSeatsAvailable(occupiedSeats),
+            this.buildSeatTable(occupiedSeats),
+            occupiedSeats
+        );
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    private String computeSeatsAvailable(int occupiedSeats) {
+        return String.valueOf(Math.max(this.capacity - occupiedSeats, 0));
+    }
+
+    private List<List<Object>> buildSeatTable(int occupiedSeats) {
+        List<Object> busRow = List.of(
+            this.bus,
+            this.schedule,
+            String.valueOf(this.capacity),
+            this.computeSeatsAvailable(occupiedSeats)
+        );
+
+        return List.of(SEAT_TABLE_HEADER, busRow);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the reservations in memory. They are lost when the worker stops, so it is meant for load tests and
+ * deployments where the reservations are mirrored somewhere else.
+ */
+public class InMemorySeatStore extends AbstractLocalSeatStore {
+
+    private final AtomicInteger occupiedSeats = new AtomicInteger();
+
+    private final Queue<List<Object>> reservations = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, Integer> seatsByReservationId = new ConcurrentHashMap<>();
+
+    public InMemorySeatStore(SeatsProperties seatsProperties) {
+        super(seatsProperties);
+    }
+
+    @Override
+    public int getOccupiedSeats() {
+        return this.occupiedSeats.get();
+    }
+
+    @Override
+    public int appendReservation(String reservationId, List<Object> reservation) throws IOException {
+        int capacity = this.getCapacity();
+        int previous = this.occupiedSeats.getAndUpdate(current -> current < capacity ? current + 1 : current);
+        if (previous >= capacity) {
+            throw new SeatStoreFullException("The seat store is full");
+        }
+
+        this.reservations.add(List.copyOf(reservation));
+        if (reservationId != null) {
+            this.seatsByReservationId.put(reservationId, previous + 1);
+        }
+
+        return previous + 1;
+    }
+
+    @Override
+    public OptionalInt findReservation(String reservationId) {
+        Integer seat = this.seatsByReservationId.get(reservationId);
+
+        return seat != null ? OptionalInt.of(seat) : OptionalInt.empty();
+    }
+}
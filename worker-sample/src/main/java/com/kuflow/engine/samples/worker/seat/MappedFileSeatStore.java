@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the reservations in a local memory-mapped file, one fixed-size record per seat. Every reservation is flushed
+ * to disk before being counted, so the file survives restarts without the cost of a remote call.
+ *
+ * <p>Layout: a header with a magic number, the number of reservations and the layout version, followed by the
+ * records. Each record has one field per passenger value and a last one with the reservation key, stored as
+ * length-prefixed UTF-8 strings truncated to the field size. Files written before the reservation key was added are
+ * rejected.
+ *
+ * <p>The file is locked while the store is open, so a second worker pointed at the same file fails on start instead of
+ * handing out the same records. Workers that share their reservations need a shared store, such as Google Sheets.
+ */
+public class MappedFileSeatStore extends AbstractLocalSeatStore implements Closeable {
+
+    private static final int MAGIC = 0x4B425352;
+
+    private static final int COUNT_OFFSET = 4;
+
+    private static final int VERSION_OFFSET = 8;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int FIELDS = 4;
+
+    private static final int RESERVATION_ID_FIELD = FIELDS - 1;
+
+    private static final int FIELD_SIZE = 256;
+
+    private static final int MAX_FIELD_BYTES = FIELD_SIZE - Short.BYTES;
+
+    private static final int RECORD_SIZE = FIELDS * FIELD_SIZE;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int slots;
+
+    private final Map<String, Integer> seatsByReservationId = new ConcurrentHashMap<>();
+
+    private volatile int occupiedSeats;
+
+    public MappedFileSeatStore(SeatsProperties seatsProperties) throws IOException {
+        super(seatsProperties);
+
+        Path file = Path.of(seatsProperties.getStore().getFile());
+        this.channel =
+            FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock(file);
+            long size = Math.max(HEADER_SIZE + (long) this.getCapacity() * RECORD_SIZE, this.channel.size());
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.checkHeader(file);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.slots = (this.buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+
+        this.occupiedSeats = this.buffer.getInt(COUNT_OFFSET);
+        for (int index = 0; index < this.occupiedSeats; index++) {
+            int offset = HEADER_SIZE + index * RECORD_SIZE;
+            String reservationId = this.readField(offset + RESERVATION_ID_FIELD * FIELD_SIZE);
+            if (!reservationId.isEmpty()) {
+                this.seatsByReservationId.put(reservationId, index + 1);
+            }
+        }
+    }
+
+    @Override
+    public int getOccupiedSeats() {
+        return this.occupiedSeats;
+    }
+
+    @Override
+    public synchronized int appendReservation(String reservationId, List<Object> reservation) throws IOException {
+        int index = this.occupiedSeats;
+        if (index >= this.getCapacity() || index >= this.slots) {
+            throw new SeatStoreFullException("The seat store is full");
+        }
+
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        for (int field = 0; field < RESERVATION_ID_FIELD; field++) {
+            Object value = field < reservation.size() ? reservation.get(field) : null;
+            this.writeField(offset + field * FIELD_SIZE, value != null ? value.toString() : "");
+        }
+        this.writeField(offset + RESERVATION_ID_FIELD * FIELD_SIZE, reservationId != null ? reservationId : "");
+        this.buffer.force(offset, RECORD_SIZE);
+
+        // The count is written once the record is on disk, so a crash never exposes a half written record
+        this.buffer.putInt(COUNT_OFFSET, index + 1);
+        this.buffer.force(0, HEADER_SIZE);
+        this.occupiedSeats = index + 1;
+        if (reservationId != null) {
+            this.seatsByReservationId.put(reservationId, index + 1);
+        }
+
+        return index + 1;
+    }
+
+    @Override
+    public OptionalInt findReservation(String reservationId) {
+        Integer seat = this.seatsByReservationId.get(reservationId);
+
+        return seat != null ? OptionalInt.of(seat) : OptionalInt.empty();
+    }
+
+    /**
+     * Releases the lock of the file, so another store can open it.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void lock(Path file) throws IOException {
+        FileLock lock;
+        try {
+            lock = this.channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("The seat store file is already in use by another store: " + file);
+        }
+    }
+
+    private void checkHeader(Path file) throws IOException {
+        int magic = this.buffer.getInt(0);
+        if (magic == 0) {
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putInt(COUNT_OFFSET, 0);
+            this.buffer.putInt(VERSION_OFFSET, VERSION);
+            this.buffer.force(0, HEADER_SIZE);
+        } else if (magic != MAGIC) {
+            throw new IOException("Not a seat store file: " + file);
+        } else if (this.buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("The seat store file was written with another record layout: " + file);
+        }
+    }
+
+    private String readField(int offset) {
+        byte[] bytes = new byte[this.buffer.getShort(offset)];
+        this.buffer.get(offset + Short.BYTES, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeField(int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_FIELD_BYTES);
+        // Do not cut a multibyte character in half
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+
+        this.buffer.putShort(offset, (short) length);
+        this.buffer.put(offset + Short.BYTES, bytes, 0, length);
+    }
+}
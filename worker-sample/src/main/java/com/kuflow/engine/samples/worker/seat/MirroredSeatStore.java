@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsSeatStore;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.OptionalInt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves everything from a local store and copies the reservations to Google Sheets in background. A failure of the
+ * copy is logged but does not fail the reservation.
+ */
+public class MirroredSeatStore implements SeatStore, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MirroredSeatStore.class);
+
+    private final SeatStore primary;
+
+    private final GoogleSheetsSeatStore mirror;
+
+    public MirroredSeatStore(SeatStore primary, GoogleSheetsSeatStore mirror) {
+        this.primary = primary;
+        this.mirror = mirror;
+    }
+
+    @Override
+    public String getSeatsAvailable() throws IOException {
+        return this.primary.getSeatsAvailable();
+    }
+
+    @Override
+    public List<List<Object>> getSeatTable() throws IOException {
+        return this.primary.getSeatTable();
+    }
+
+    @Override
+    public int getCapacity() throws IOException {
+        return this.primary.getCapacity();
+    }
+
+    @Override
+    public int getOccupiedSeats() throws IOException {
+        return this.primary.getOccupiedSeats();
+    }
+
+    @Override
+    public SeatStoreSnapshot getSnapshot() throws IOException {
+        return this.primary.getSnapshot();
+    }
+
+    @Override
+    public int appendReservation(String reservationId, List<Object> reservation) throws IOException {
+        int seat = this.primary.appendReservation(reservationId, reservation);
+
+        this.mirror
+            .appendReservationAsync(reservationId, reservation)
+            .whenComplete((result, e) -> {
+                if (e != null) {
+                    LOGGER.error("Error mirroring the reservation to Google Sheets", e);
+                }
+            });
+
+        return seat;
+    }
+
+    @Override
+    public OptionalInt findReservation(String reservationId) throws IOException {
+        return this.primary.findReservation(reservationId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsChangeWatcher;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signals the workflows waiting on the seats of a route every time the {@link GoogleSheetsChangeWatcher} finds the
+ * spreadsheet of the route changed, so they are woken up by a single poll instead of each of them reading the
+ * spreadsheet. The workflows registered receive the {@value #SIGNAL_SEATS_CHANGED} signal with the seats available
+ * as its only argument, right away if the seats of the route are already known, and are dropped once they have been
+ * closed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.google-sheets.change-watcher", name = "enabled", havingValue = "true")
+public class SeatChangeSignaler implements DisposableBean {
+
+    public static final String SIGNAL_SEATS_CHANGED = "seatsChanged";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatChangeSignaler.class);
+
+    private final WorkflowClient workflowClient;
+
+    private final Map<String, Set<String>> workflowIdsByRoute = new ConcurrentHashMap<>();
+
+    private final Map<String, String> seatsAvailableByRoute = new ConcurrentHashMap<>();
+
+    // Signaling waits for the Temporal server, so it is kept off the polling thread
+    private final ExecutorService signaler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-change-signaler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SeatChangeSignaler(WorkflowClient workflowClient, GoogleSheetsChangeWatcher googleSheetsChangeWatcher) {
+        this.workflowClient = workflowClient;
+        googleSheetsChangeWatcher.subscribe((route, snapshot) ->
+            this.signaler.execute(() -> this.signalAll(route, snapshot.seatsAvailable()))
+        );
+    }
+
+    /**
+     * Signals the workflow on every change of the seats of the route, until it is unregistered or closed.
+     *
+     * @param route route key, {@link SeatLedger#DEFAULT_ROUTE} for the reservations without a route
+     * @param workflowId workflow to signal
+     */
+    public void register(String route, String workflowId) {
+        this.workflowIdsByRoute.computeIfAbsent(route, key -> ConcurrentHashMap.newKeySet()).add(workflowId);
+        this.signaler.execute(() -> {
+            String seatsAvailable = this.seatsAvailableByRoute.get(route);
+            if (seatsAvailable != null) {
+                this.signal(route, workflowId, seatsAvailable);
+            }
+        });
+    }
+
+    public void unregister(String route, String workflowId) {
+        Set<String> workflowIds = this.workflowIdsByRoute.get(route);
+        if (workflowIds != null) {
+            workflowIds.remove(workflowId);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.signaler.shutdownNow();
+    }
+
+    private void signalAll(String route, String seatsAvailable) {
+        this.seatsAvailableByRoute.put(route, seatsAvailable);
+        for (String workflowId : this.workflowIdsByRoute.getOrDefault(route, Set.of())) {
+            this.signal(route, workflowId, seatsAvailable);
+        }
+    }
+
+    private void signal(String route, String workflowId, String seatsAvailable) {
+        try {
+            this.workflowClient
+                .newUntypedWorkflowStub(workflowId, Optional.empty(), Optional.empty())
+                .signal(SIGNAL_SEATS_CHANGED, seatsAvailable);
+        } catch (WorkflowNotFoundException e) {
+            this.unregister(route, workflowId);
+        } catch (RuntimeException e) {
+            // The workflow will be signaled again on the next change
+            LOGGER.error("Error signaling workflow {} the change of the seats of route {}", workflowId, route, e);
+        }
+    }
+}
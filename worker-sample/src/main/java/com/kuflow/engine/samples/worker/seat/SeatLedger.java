@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admits the reservations without reading the {@link SeatStore}. The number of occupied seats is kept in an atomic
+ * counter, so concurrent reservations never exceed the bus capacity. The seat numbers are not handed out here, they
+ * are the positions of the reservations in the store, so they are unique even when several workers write the same
+ * store.
+ *
+ * <p>A reservation holds its seat until it is written, then the seat is confirmed, or until it fails, then the seat is
+ * cancelled and given back. The holds are keyed by reservation, so the attempts of the same reservation never hold
+ * two seats, and an attempt that finds the reservation held by another one still in progress fails instead of
+ * writing it twice.
+ *
+ * <p>The counter only moves forward: reconciling with a lower count coming from the store is ignored, because
+ * the seats held by this worker may not have been written yet. The seats given back in the store, when a
+ * reservation is removed by hand, are released explicitly instead. The ledger only counts the reservations of its
+ * own worker between two reconciliations, so workers sharing a store may admit more reservations than seats together.
+ * The store is the last guard: it refuses with a {@link SeatStoreFullException} the reservations beyond its capacity,
+ * and the ledger is then taken as full until the next reconciliation.
+ *
+ * <p>This bean is the ledger of the reservations without a route, each route in {@code application.routes} has its
+ * own ledger in {@link SeatRoutes}.
+ */
+@Component
+public class SeatLedger implements MeterBinder {
+
+    /**
+     * Route tag of the ledger of the reservations without a route.
+     */
+    public static final String DEFAULT_ROUTE = "default";
+
+    private static final int NOT_RECONCILED = -1;
+
+    private final String route;
+
+    private volatile int capacity;
+
+    private final AtomicInteger occupiedSeats = new AtomicInteger(NOT_RECONCILED);
+
+    private final Set<String> heldReservationIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SeatLedger(ApplicationProperties applicationProperties) {
+        this(DEFAULT_ROUTE, applicationProperties.getSeats().getCapacity());
+    }
+
+    public SeatLedger(String route, int capacity) {
+        this.route = route;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Holds a free seat for the reservation until it is {@link #confirm confirmed} or {@link #cancel cancelled}.
+     *
+     * @param reservationId reservation, the same for all its attempts
+     * @return true if a seat is held, false if the bus is full
+     * @throws IllegalStateException if the ledger has not been reconciled with the store yet, or if the reservation
+     *     already holds a seat, because another attempt is still writing it
+     */
+    public boolean hold(String reservationId) {
+        if (!this.heldReservationIds.add(reservationId)) {
+            throw new IllegalStateException("Reservation " + reservationId + " is already being written");
+        }
+
+        while (true) {
+            int current = this.occupiedSeats.get();
+            if (current == NOT_RECONCILED) {
+                this.heldReservationIds.remove(reservationId);
+                throw new IllegalStateException("The seat ledger has not been reconciled yet");
+            }
+            if (current >= this.capacity) {
+                this.heldReservationIds.remove(reservationId);
+                return false;
+            }
+            if (this.occupiedSeats.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Keeps the seat held by the reservation occupied, once it has been written.
+     *
+     * @param reservationId reservation holding the seat
+     */
+    public void confirm(String reservationId) {
+        this.heldReservationIds.remove(reservationId);
+    }
+
+    /**
+     * Gives back the seat held by the reservation, when it could not be written or had already been written by a
+     * previous attempt. Nothing is given back if the reservation holds no seat.
+     *
+     * @param reservationId reservation holding the seat
+     */
+    public void cancel(String reservationId) {
+        if (this.heldReservationIds.remove(reservationId)) {
+            this.release(1);
+        }
+    }
+
+    /**
+     * Moves the ledger forward to the number of seats occupied in the store.
+     *
+     * @param occupiedSeats seats occupied according to the store
+     */
+    public void reconcile(int occupiedSeats) {
+        this.occupiedSeats.accumulateAndGet(occupiedSeats, Math::max);
+    }
+
+    /**
+     * Takes the capacity of the store, which may have been changed there, and moves the ledger forward to the number
+     * of seats occupied in it.
+     *
+     * @param occupiedSeats seats occupied according to the store
+     * @param capacity seats of the bus according to the store
+     */
+    public void reconcile(int occupiedSeats, int capacity) {
+        this.capacity = capacity;
+        this.reconcile(occupiedSeats);
+    }
+
+    /**
+     * Gives back seats whose reservations have been removed from the store, so they are allocated again.
+     *
+     * @param seats seats removed from the store
+     */
+    public void release(int seats) {
+        this.occupiedSeats.updateAndGet(current -> current == NOT_RECONCILED ? current : Math.max(current - seats, 0));
+    }
+
+    public boolean isReconciled() {
+        return this.occupiedSeats.get() != NOT_RECONCILED;
+    }
+
+    public String getRoute() {
+        return this.route;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("seats.occupied", this.occupiedSeats, occupied -> Math.max(occupied.get(), 0))
+            .description("Seats allocated by the ledger")
+            .tag("route", this.route)
+            .register(registry);
+        Gauge
+            .builder("seats.capacity", () -> this.capacity)
+            .description("Seats of the bus")
+            .tag("route", this.route)
+            .register(registry);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsChangeWatcher;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link SeatLedger} in line with the {@link SeatStore}, and the ledger of each route in line with its
+ * store, at startup and then periodically, so reservations done outside this worker are taken into account. The
+ * capacity is taken from the store as well, so the seats of a spreadsheet can be changed in its C2 cell.
+ *
+ * <p>With the {@link GoogleSheetsChangeWatcher} enabled, the seats given back in a spreadsheet between two polls,
+ * because reservations have been removed by hand, are released from the ledger of the route. The worker only appends
+ * reservations, so a lower count of occupied seats can only come from removals. A removal polled together with new
+ * reservations of this worker is not noticed, which never oversells the seats.
+ */
+@Component
+public class SeatLedgerReconciler implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatLedgerReconciler.class);
+
+    private final SeatLedger seatLedger;
+
+    private final SeatStore seatStore;
+
+    private final SeatRoutes seatRoutes;
+
+    private final Duration reconcileInterval;
+
+    private final ObjectProvider<GoogleSheetsChangeWatcher> googleSheetsChangeWatcher;
+
+    private final Map<String, SeatLedger> seatLedgers = new HashMap<>();
+
+    private final Map<String, Integer> polledOccupiedSeats = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-ledger-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SeatLedgerReconciler(
+        ApplicationProperties applicationProperties,
+        SeatLedger seatLedger,
+        SeatStore seatStore,
+        SeatRoutes seatRoutes,
+        ObjectProvider<GoogleSheetsChangeWatcher> googleSheetsChangeWatcher
+    ) {
+        this.seatLedger = seatLedger;
+        this.seatStore = seatStore;
+        this.seatRoutes = seatRoutes;
+        this.reconcileInterval = applicationProperties.getSeats().getReconcileInterval();
+        this.googleSheetsChangeWatcher = googleSheetsChangeWatcher;
+
+        this.seatLedgers.put(seatLedger.getRoute(), seatLedger);
+        seatRoutes.getRoutes().forEach(route -> this.seatLedgers.put(route.key(), route.seatLedger()));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long intervalMillis = this.reconcileInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::reconcile, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        this.googleSheetsChangeWatcher.ifAvailable(watcher ->
+            watcher.subscribe((route, snapshot) -> this.releaseRemovedSeats(route, snapshot.occupiedSeats()))
+        );
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    private void reconcile() {
+        this.reconcile(this.seatLedger, this.seatStore);
+        this.seatRoutes.getRoutes().forEach(route -> this.reconcile(route.seatLedger(), route.seatStore()));
+    }
+
+    private void reconcile(SeatLedger seatLedger, SeatStore seatStore) {
+        // A route failing to reconcile must not keep the others from being reconciled
+        try {
+            int occupiedSeats = seatStore.getOccupiedSeats();
+            int capacity = seatStore.getCapacity();
+            if (capacity != seatLedger.getCapacity()) {
+                LOGGER.info("Route {} has {} seats in its store", seatLedger.getRoute(), capacity);
+            }
+
+            seatLedger.reconcile(occupiedSeats, capacity);
+            LOGGER.debug("Seat ledger of route {} reconciled, {} seats occupied", seatLedger.getRoute(), occupiedSeats);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error reconciling the seat ledger of route {}", seatLedger.getRoute(), e);
+        }
+    }
+
+    private void releaseRemovedSeats(String route, int occupiedSeats) {
+        Integer previousOccupiedSeats = this.polledOccupiedSeats.put(route, occupiedSeats);
+        SeatLedger seatLedger = this.seatLedgers.get(route);
+        if (previousOccupiedSeats == null || occupiedSeats >= previousOccupiedSeats || seatLedger == null) {
+            return;
+        }
+
+        int removedSeats = previousOccupiedSeats - occupiedSeats;
+        seatLedger.release(removedSeats);
+        LOGGER.info("{} seats removed from the spreadsheet of route {}, released from its ledger", removedSeats, route);
+    }
+}
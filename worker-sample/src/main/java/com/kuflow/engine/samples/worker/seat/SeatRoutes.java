@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.RouteProperties;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsAppendCoalescer;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsRequestMetrics;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsSeatStore;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsValuesCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seat store and seat ledger of each route in {@code application.routes}. Every route keeps its reservations in its
+ * own spreadsheet, while the Sheets client, the values cache and the append coalescer are shared, so the rows written
+ * at the same time for the same spreadsheet are still appended together.
+ */
+@Component
+public class SeatRoutes implements MeterBinder {
+
+    private final List<SeatRoute> routes;
+
+    public SeatRoutes(
+        ApplicationProperties applicationProperties,
+        Sheets sheets,
+        GoogleSheetsValuesCache googleSheetsValuesCache,
+        GoogleSheetsAppendCoalescer googleSheetsAppendCoalescer,
+        GoogleSheetsRequestMetrics googleSheetsRequestMetrics
+    ) {
+        List<SeatRoute> routes = new ArrayList<>();
+        for (Map.Entry<String, RouteProperties> entry : applicationProperties.getRoutes().entrySet()) {
+            RouteProperties route = entry.getValue();
+            SeatStore seatStore = new GoogleSheetsSeatStore(
+                route.getSpreadsheetId(),
+                route.getSheetName(),
+                sheets,
+                googleSheetsValuesCache,
+                googleSheetsAppendCoalescer,
+                googleSheetsRequestMetrics
+            );
+
+            routes.add(new SeatRoute(entry.getKey(), seatStore, new SeatLedger(entry.getKey(), route.getCapacity())));
+        }
+
+        this.routes = Collections.unmodifiableList(routes);
+    }
+
+    public List<SeatRoute> getRoutes() {
+        return this.routes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.routes.forEach(route -> route.seatLedger().bindTo(registry));
+    }
+
+    /**
+     * @param key route key, as given in the "route" memo of the workflows
+     * @param seatStore where the reservations of the route are kept
+     * @param seatLedger hands out the seats of the route
+     */
+    public record SeatRoute(String key, SeatStore seatStore, SeatLedger seatLedger) {}
+}
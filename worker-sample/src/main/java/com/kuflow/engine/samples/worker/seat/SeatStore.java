@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Storage of the bus seats and the reservations done on them.
+ */
+public interface SeatStore {
+    /**
+     * Number of seats still available, as shown to the users.
+     *
+     * @return seats available
+     * @throws IOException if the store cannot be read
+     */
+    String getSeatsAvailable() throws IOException;
+
+    /**
+     * Bus billboard, a header row followed by one row per bus with its schedule, seats and seats available.
+     *
+     * @return table rows
+     * @throws IOException if the store cannot be read
+     */
+    List<List<Object>> getSeatTable() throws IOException;
+
+    /**
+     * Number of seats of the bus.
+     *
+     * @return capacity
+     * @throws IOException if the store cannot be read
+     */
+    int getCapacity() throws IOException;
+
+    /**
+     * Number of reservations done.
+     *
+     * @return seats occupied
+     * @throws IOException if the store cannot be read
+     */
+    int getOccupiedSeats() throws IOException;
+
+    /**
+     * Reads the seats available, the bus billboard and the occupied seats at once.
+     *
+     * @return seats snapshot
+     * @throws IOException if the store cannot be read
+     */
+    SeatStoreSnapshot getSnapshot() throws IOException;
+
+    /**
+     * Stores a new reservation after the last one.
+     *
+     * @param reservationId key of the reservation, kept along with it to be {@link #findReservation found} again, or
+     *     null if it is not looked up
+     * @param reservation first name, last name and email of the passenger
+     * @return seat of the reservation, its position among the reservations of the store
+     * @throws SeatStoreFullException if a reservation with a key would be given a seat beyond the capacity, it is not
+     *     stored then
+     * @throws IOException if the reservation could not be stored
+     */
+    int appendReservation(String reservationId, List<Object> reservation) throws IOException;
+
+    /**
+     * Looks up a reservation stored before, so it is not stored twice.
+     *
+     * @param reservationId key the reservation was stored with
+     * @return seat of the reservation, or empty if it has not been stored
+     * @throws IOException if the store cannot be read
+     */
+    OptionalInt findReservation(String reservationId) throws IOException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import com.kuflow.engine.samples.worker.sheets.GoogleSheetsSeatStore;
+import java.io.IOException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Selects the {@link SeatStore} used by the activities from {@code application.seats.store}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SeatStoreConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    public SeatStoreConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    @Primary
+    public SeatStore seatStore(GoogleSheetsSeatStore googleSheetsSeatStore) throws IOException {
+        SeatsProperties seatsProperties = this.applicationProperties.getSeats();
+
+        SeatStore seatStore =
+            switch (seatsProperties.getStore().getType()) {
+                case GOOGLE_SHEETS -> googleSheetsSeatStore;
+                case IN_MEMORY -> new InMemorySeatStore(seatsProperties);
+                case MAPPED_FILE -> new MappedFileSeatStore(seatsProperties);
+            };
+
+        if (seatStore != googleSheetsSeatStore && seatsProperties.getStore().isMirrorToGoogleSheets()) {
+            return new MirroredSeatStore(seatStore, googleSheetsSeatStore);
+        }
+
+        return seatStore;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link SeatStore} that refuses a reservation because all its seats are occupied, by reservations of this
+ * worker or of any other worker writing the same store.
+ */
+public class SeatStoreFullException extends IOException {
+
+    public SeatStoreFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import java.util.List;
+
+/**
+ * Seats read from a {@link SeatStore} at once.
+ *
+ * @param seatsAvailable seats still available
+ * @param seatTable bus billboard rows
+ * @param occupiedSeats number of reservations done
+ */
+public record SeatStoreSnapshot(String seatsAvailable, List<List<Object>> seatTable, int occupiedSeats) {}
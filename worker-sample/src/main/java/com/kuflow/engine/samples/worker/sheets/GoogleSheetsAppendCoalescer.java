@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.AppendValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.AppendProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Groups the rows appended concurrently to the same range in a single request, to stay below the Sheets write quota.
+ * Rows are buffered until the configured window elapses or the batch is full, and each caller is released only when
+ * its row has been written, with the number of the sheet row it was written to.
+ *
+ * <p>Each range has its own batch in flight at most, sent by a thread of its own, so a slow or rate limited append
+ * only delays the rows of its range and not those of the other spreadsheets and routes. The rows appended while a
+ * batch is in flight are sent together as soon as it completes. Whatever goes wrong while sending a batch fails the
+ * rows of that batch only. The blocking callers give up after the start to close timeout of the write activities, and
+ * the rows appended once the coalescer is shutting down are rejected, so no caller waits forever.
+ */
+@Component
+public class GoogleSheetsAppendCoalescer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleSheetsAppendCoalescer.class);
+
+    /**
+     * First row of the range written, e.g. 15 in {@code 'Sheet 1'!A15:D18}, once the sheet name is removed.
+     */
+    private static final Pattern FIRST_ROW = Pattern.compile("^\\$?[A-Z]+\\$?(\\d+)");
+
+    private final Sheets sheets;
+
+    private final GoogleSheetsRequestMetrics requestMetrics;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Duration appendTimeout;
+
+    private final Map<String, AppendTarget> targets = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService windowScheduler;
+
+    private final ExecutorService senders;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer flushLatency;
+
+    private volatile boolean shutdown;
+
+    public GoogleSheetsAppendCoalescer(
+        ApplicationProperties applicationProperties,
+        Sheets sheets,
+        GoogleSheetsRequestMetrics requestMetrics,
+        MeterRegistry meterRegistry
+    ) {
+        AppendProperties appendProperties = applicationProperties.getGoogleSheets().getAppend();
+
+        this.sheets = sheets;
+        this.requestMetrics = requestMetrics;
+        this.windowNanos = appendProperties.getWindow().toNanos();
+        this.maxBatchSize = appendProperties.getMaxBatchSize();
+        // Waiting longer is useless, the activity has timed out by then
+        this.appendTimeout =
+            applicationProperties.getTemporal().getGoogleSheetsActivities().getWrite().getStartToCloseTimeout();
+        this.batchSize =
+            DistributionSummary
+                .builder("gsheets.append.batch.size")
+                .description("Rows written by each append request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushLatency =
+            Timer
+                .builder("gsheets.append.flush")
+                .description("Duration of each append request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.windowScheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gsheets-append-window");
+                thread.setDaemon(true);
+                return thread;
+            });
+        // A thread per range at most, as each range has a single batch in flight
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders =
+            Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "gsheets-append-coalescer-" + senderCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Appends the row after the last row of the range, blocking until it has been written.
+     *
+     * @param spreadsheetId spreadsheet to write
+     * @param range range in A1 notation whose table is extended
+     * @param row values of the row
+     * @return number of the sheet row written, one based
+     * @throws IOException if the row could not be written, or was not written in time
+     */
+    public int append(String spreadsheetId, String range, List<Object> row) throws IOException {
+        PendingRow pendingRow = this.enqueue(spreadsheetId, range, row);
+        try {
+            return pendingRow.written().get(this.appendTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            this.withdraw(pendingRow);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the row to be written");
+        } catch (TimeoutException e) {
+            // The row is withdrawn if it has not been sent yet, otherwise it may still be written
+            boolean withdrawn = this.withdraw(pendingRow);
+            throw new IOException(
+                String.format(
+                    "The row was not written within %s%s",
+                    this.appendTimeout,
+                    withdrawn ? "" : ", it may still be written"
+                )
+            );
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Unable to append the row", e.getCause());
+        }
+    }
+
+    /**
+     * Appends the row after the last row of the range.
+     *
+     * @param spreadsheetId spreadsheet to write
+     * @param range range in A1 notation whose table is extended
+     * @param row values of the row
+     * @return future completed with the number of the sheet row, one based, when the row has been written
+     */
+    public CompletableFuture<Integer> appendAsync(String spreadsheetId, String range, List<Object> row) {
+        return this.enqueue(spreadsheetId, range, row).written();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        this.shutdown = true;
+        this.windowScheduler.shutdownNow();
+        this.senders.shutdownNow();
+        this.windowScheduler.awaitTermination(10, TimeUnit.SECONDS);
+        this.senders.awaitTermination(10, TimeUnit.SECONDS);
+
+        for (AppendTarget target : this.targets.values()) {
+            this.fail(target.drain(), new IOException("The append coalescer has been shut down"));
+        }
+    }
+
+    private PendingRow enqueue(String spreadsheetId, String range, List<Object> row) {
+        PendingRow pendingRow = new PendingRow(spreadsheetId, range, row, new CompletableFuture<>());
+        if (this.shutdown) {
+            this.fail(List.of(pendingRow), new IOException("The append coalescer has been shut down"));
+            return pendingRow;
+        }
+
+        AppendTarget target = this.targets.computeIfAbsent(
+            spreadsheetId + "/" + range,
+            key -> new AppendTarget(spreadsheetId, range)
+        );
+        target.add(pendingRow);
+        // Rows added while the coalescer was being shut down may have missed the last drain
+        if (this.shutdown && target.withdraw(pendingRow)) {
+            this.fail(List.of(pendingRow), new IOException("The append coalescer has been shut down"));
+        }
+
+        return pendingRow;
+    }
+
+    private boolean withdraw(PendingRow pendingRow) {
+        AppendTarget target = this.targets.get(pendingRow.spreadsheetId() + "/" + pendingRow.range());
+
+        return target != null && target.withdraw(pendingRow);
+    }
+
+    private void flush(String spreadsheetId, String range, List<PendingRow> batch) {
+        ValueRange valueRange = new ValueRange();
+        valueRange.setValues(batch.stream().map(PendingRow::row).toList());
+
+        long start = System.nanoTime();
+        try {
+            // Only the range written is returned, not the table or the values
+            AppendValuesResponse response = this.requestMetrics.record(
+                "values.append",
+                () ->
+                    this.sheets
+                        .spreadsheets()
+                        .values()
+                        .append(spreadsheetId, range, valueRange)
+                        .setValueInputOption("USER_ENTERED")
+                        .setIncludeValuesInResponse(false)
+                        .setFields("updates.updatedRange")
+                        .execute()
+            );
+            String updatedRange = response.getUpdates() != null ? response.getUpdates().getUpdatedRange() : null;
+            LOGGER.debug("{} rows appended to {}", batch.size(), updatedRange);
+
+            // The rows are written in the order they were sent
+            int firstRow = this.getFirstRow(updatedRange);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).written().complete(firstRow + i);
+            }
+        } catch (Throwable e) {
+            // The rows already written are not failed again
+            LOGGER.error("Error appending {} rows", batch.size(), e);
+            this.fail(batch, e);
+        } finally {
+            this.flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.batchSize.record(batch.size());
+        }
+    }
+
+    private int getFirstRow(String updatedRange) throws IOException {
+        if (updatedRange != null) {
+            // The sheet name may hold any character, the cells follow its last '!'
+            Matcher matcher = FIRST_ROW.matcher(updatedRange.substring(updatedRange.lastIndexOf('!') + 1));
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+
+        throw new IOException("The rows were appended to an unknown range: " + updatedRange);
+    }
+
+    private void fail(List<PendingRow> batch, Throwable cause) {
+        batch.forEach(pendingRow -> pendingRow.written().completeExceptionally(cause));
+    }
+
+    /**
+     * Rows waiting to be appended to a range, and its batch in flight.
+     */
+    private final class AppendTarget {
+
+        private final String spreadsheetId;
+
+        private final String range;
+
+        private final Deque<PendingRow> pendingRows = new ArrayDeque<>();
+
+        private boolean flushing;
+
+        private ScheduledFuture<?> window;
+
+        private AppendTarget(String spreadsheetId, String range) {
+            this.spreadsheetId = spreadsheetId;
+            this.range = range;
+        }
+
+        synchronized void add(PendingRow pendingRow) {
+            this.pendingRows.addLast(pendingRow);
+            if (this.flushing) {
+                // Sent when the batch in flight completes
+                return;
+            }
+
+            if (this.pendingRows.size() >= GoogleSheetsAppendCoalescer.this.maxBatchSize) {
+                this.startFlush();
+            } else if (this.window == null) {
+                this.window =
+                    GoogleSheetsAppendCoalescer.this.windowScheduler.schedule(
+                        this::windowElapsed,
+                        GoogleSheetsAppendCoalescer.this.windowNanos,
+                        TimeUnit.NANOSECONDS
+                    );
+            }
+        }
+
+        synchronized boolean withdraw(PendingRow pendingRow) {
+            return this.pendingRows.remove(pendingRow);
+        }
+
+        synchronized List<PendingRow> drain() {
+            List<PendingRow> unwrittenRows = new ArrayList<>(this.pendingRows);
+            this.pendingRows.clear();
+
+            return unwrittenRows;
+        }
+
+        private synchronized void windowElapsed() {
+            this.window = null;
+            if (!this.flushing && !this.pendingRows.isEmpty()) {
+                this.startFlush();
+            }
+        }
+
+        private synchronized void flushed() {
+            this.flushing = false;
+            if (!this.pendingRows.isEmpty()) {
+                // These rows have already waited for the batch in flight
+                this.startFlush();
+            }
+        }
+
+        private void startFlush() {
+            if (this.window != null) {
+                this.window.cancel(false);
+                this.window = null;
+            }
+
+            List<PendingRow> batch = new ArrayList<>(GoogleSheetsAppendCoalescer.this.maxBatchSize);
+            while (!this.pendingRows.isEmpty() && batch.size() < GoogleSheetsAppendCoalescer.this.maxBatchSize) {
+                batch.add(this.pendingRows.pollFirst());
+            }
+
+            this.flushing = true;
+            try {
+                GoogleSheetsAppendCoalescer.this.senders.execute(() -> {
+                        try {
+                            GoogleSheetsAppendCoalescer.this.flush(this.spreadsheetId, this.range, batch);
+                        } finally {
+                            this.flushed();
+                        }
+                    });
+            } catch (RejectedExecutionException e) {
+                this.flushing = false;
+                GoogleSheetsAppendCoalescer.this.fail(
+                    batch,
+                    new IOException("The append coalescer has been shut down")
+                );
+            }
+        }
+    }
+
+    private record PendingRow(
+        String spreadsheetId,
+        String range,
+        List<Object> row,
+        CompletableFuture<Integer> written
+    ) {}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes;
+import com.kuflow.engine.samples.worker.seat.SeatRoutes.SeatRoute;
+import com.kuflow.engine.samples.worker.seat.SeatStoreSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls the billboard of the spreadsheet of every route, the default one included, with a single thread for the whole
+ * worker. Each poll refreshes the cached reads of the route, so the workflows read the spreadsheet from memory
+ * instead of each of them requesting it, and the subscribers are told when the billboard has changed, also when it
+ * has been edited by hand, as the seats available are counted by the sheet formula.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.google-sheets.change-watcher", name = "enabled", havingValue = "true")
+public class GoogleSheetsChangeWatcher implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleSheetsChangeWatcher.class);
+
+    private final Map<String, GoogleSheetsSeatStore> seatStores = new LinkedHashMap<>();
+
+    private final Map<String, Counter> changeCounters = new HashMap<>();
+
+    private final Map<String, SeatStoreSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final Duration interval;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gsheets-change-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GoogleSheetsChangeWatcher(
+        ApplicationProperties applicationProperties,
+        GoogleSheetsSeatStore googleSheetsSeatStore,
+        SeatRoutes seatRoutes,
+        MeterRegistry meterRegistry
+    ) {
+        this.interval = applicationProperties.getGoogleSheets().getChangeWatcher().getInterval();
+
+        this.seatStores.put(SeatLedger.DEFAULT_ROUTE, googleSheetsSeatStore);
+        for (SeatRoute route : seatRoutes.getRoutes()) {
+            if (route.seatStore() instanceof GoogleSheetsSeatStore seatStore) {
+                this.seatStores.put(route.key(), seatStore);
+            }
+        }
+        for (String route : this.seatStores.keySet()) {
+            Counter changeCounter = Counter
+                .builder("gsheets.changes")
+                .description("Changes of the billboard detected by polling the spreadsheet")
+                .tag("route", route)
+                .register(meterRegistry);
+            this.changeCounters.put(route, changeCounter);
+        }
+    }
+
+    /**
+     * Registers a subscriber, told right away about the seats of every route already polled, and then about every
+     * change. The changes are published from the polling thread, so the subscribers must not block.
+     *
+     * @param subscriber subscriber to add
+     */
+    public void subscribe(Subscriber subscriber) {
+        this.subscribers.add(subscriber);
+        this.snapshots.forEach((route, snapshot) -> this.publish(subscriber, route, snapshot));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long intervalMillis = this.interval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    private void poll() {
+        this.seatStores.forEach(this::poll);
+    }
+
+    private void poll(String route, GoogleSheetsSeatStore seatStore) {
+        // A spreadsheet failing to be read must not keep the others from being polled
+        SeatStoreSnapshot snapshot;
+        try {
+            snapshot = seatStore.refreshSnapshot();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error polling the spreadsheet {} of route {}", seatStore.getSpreadsheetId(), route, e);
+            return;
+        }
+
+        // The billboard is compared as a whole, the seats available change with every passenger added or removed
+        SeatStoreSnapshot previousSnapshot = this.snapshots.put(route, snapshot);
+        if (previousSnapshot != null && previousSnapshot.seatTable().equals(snapshot.seatTable())) {
+            return;
+        }
+
+        if (previousSnapshot != null) {
+            this.changeCounters.get(route).increment();
+            LOGGER.debug("Spreadsheet of route {} changed, {} seats available", route, snapshot.seatsAvailable());
+        }
+        this.subscribers.forEach(subscriber -> this.publish(subscriber, route, snapshot));
+    }
+
+    private void publish(Subscriber subscriber, String route, SeatStoreSnapshot snapshot) {
+        try {
+            subscriber.onChange(route, snapshot);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error publishing the change of the spreadsheet of route {}", route, e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Subscriber {
+        /**
+         * @param route route whose spreadsheet changed, {@link SeatLedger#DEFAULT_ROUTE} for the default one
+         * @param snapshot seats of the route after the change
+         */
+        void onChange(String route, SeatStoreSnapshot snapshot);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.services.sheets.v4.Sheets;
+import com.kuflow.engine.client.common.error.KuFlowEngineClientException;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.HttpProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import org.apache.http.client.HttpClient;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Builds a single thread-safe Sheets client backed by a pooled HTTP transport, shared by every activity execution. Its
+ * requests are kept within the API quota by the {@link GoogleSheetsRateLimiter}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class GoogleSheetsConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    public GoogleSheetsConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager googleSheetsConnectionManager() {
+        HttpProperties http = this.applicationProperties.getGoogleSheets().getHttp();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+            this.createSocketFactoryRegistry(),
+            null,
+            null,
+            null,
+            http.getKeepAlive().toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        // All the requests go to the same host, so the route limit is the pool limit
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnections());
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ApacheHttpTransport googleSheetsHttpTransport(PoolingHttpClientConnectionManager connectionManager) {
+        long keepAliveMillis = this.applicationProperties.getGoogleSheets().getHttp().getKeepAlive().toMillis();
+
+        HttpClient httpClient = ApacheHttpTransport
+            .newDefaultHttpClientBuilder()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy((response, context) -> keepAliveMillis)
+            .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+            .build();
+
+        return new ApacheHttpTransport(httpClient);
+    }
+
+    @Bean
+    public GoogleSheetsCredentialProvider googleSheetsCredentialProvider(HttpTransport googleSheetsHttpTransport) {
+        return new GoogleSheetsCredentialProvider(this.applicationProperties, googleSheetsHttpTransport);
+    }
+
+    @Bean
+    public GoogleSheetsRateLimiter googleSheetsRateLimiter(
+        GoogleSheetsCredentialProvider googleSheetsCredentialProvider,
+        MeterRegistry meterRegistry
+    ) {
+        return new GoogleSheetsRateLimiter(this.applicationProperties, googleSheetsCredentialProvider, meterRegistry);
+    }
+
+    @Bean
+    public Sheets sheets(HttpTransport googleSheetsHttpTransport, GoogleSheetsRateLimiter googleSheetsRateLimiter) {
+        return new Sheets.Builder(
+            googleSheetsHttpTransport,
+            GoogleSheetsCredentialProvider.JSON_FACTORY,
+            googleSheetsRateLimiter
+        )
+            .setApplicationName(this.applicationProperties.getGoogleSheets().getApplicationName())
+            .build();
+    }
+
+    @Bean
+    public GoogleSheetsSeatStore googleSheetsSeatStore(
+        Sheets sheets,
+        GoogleSheetsValuesCache googleSheetsValuesCache,
+        GoogleSheetsAppendCoalescer googleSheetsAppendCoalescer,
+        GoogleSheetsRequestMetrics googleSheetsRequestMetrics
+    ) {
+        return new GoogleSheetsSeatStore(
+            this.applicationProperties.getGoogleSheets(),
+            sheets,
+            googleSheetsValuesCache,
+            googleSheetsAppendCoalescer,
+            googleSheetsRequestMetrics
+        );
+    }
+
+    @Bean
+    public GoogleSheetsConnectionPoolMetrics googleSheetsConnectionPoolMetrics(
+        PoolingHttpClientConnectionManager googleSheetsConnectionManager
+    ) {
+        return new GoogleSheetsConnectionPoolMetrics(googleSheetsConnectionManager);
+    }
+
+    private Registry<ConnectionSocketFactory> createSocketFactoryRegistry() {
+        try {
+            SSLContext sslContext = SSLContexts
+                .custom()
+                .loadTrustMaterial(GoogleUtils.getCertificateTrustStore(), null)
+                .build();
+
+            return RegistryBuilder
+                .<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build();
+        } catch (GeneralSecurityException | IOException e) {
+            throw new KuFlowEngineClientException("Unable to configure the Google Sheets trust store", e);
+        }
+    }
+}
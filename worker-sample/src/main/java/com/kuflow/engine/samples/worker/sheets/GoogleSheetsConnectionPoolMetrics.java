@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToIntFunction;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Publishes the utilization of the Google Sheets HTTP connection pool.
+ */
+public class GoogleSheetsConnectionPoolMetrics implements MeterBinder {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public GoogleSheetsConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registerGauge(registry, "leased", "Connections currently in use", PoolStats::getLeased);
+        this.registerGauge(registry, "available", "Idle connections kept alive in the pool", PoolStats::getAvailable);
+        this.registerGauge(registry, "pending", "Requests waiting for a connection", PoolStats::getPending);
+        this.registerGauge(registry, "max", "Max number of connections in the pool", PoolStats::getMax);
+    }
+
+    private void registerGauge(
+        MeterRegistry registry,
+        String state,
+        String description,
+        ToIntFunction<PoolStats> stat
+    ) {
+        Gauge
+            .builder(
+                "gsheets.http.connections",
+                this.connectionManager,
+                manager -> stat.applyAsInt(manager.getTotalStats())
+            )
+            .tag("state", state)
+            .description(description)
+            .register(registry);
+    }
+}
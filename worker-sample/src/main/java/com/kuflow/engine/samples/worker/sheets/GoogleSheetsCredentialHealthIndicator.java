@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.client.auth.oauth2.Credential;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether the worker holds a valid Google access token, as the {@code googleSheetsCredential} health
+ * component: down when the credential could not be loaded or its token expired, unknown while it isn't loaded.
+ */
+@Component
+public class GoogleSheetsCredentialHealthIndicator implements HealthIndicator {
+
+    private final GoogleSheetsCredentialProvider googleSheetsCredentialProvider;
+
+    public GoogleSheetsCredentialHealthIndicator(GoogleSheetsCredentialProvider googleSheetsCredentialProvider) {
+        this.googleSheetsCredentialProvider = googleSheetsCredentialProvider;
+    }
+
+    @Override
+    public Health health() {
+        Credential credential = this.googleSheetsCredentialProvider.getLoadedCredential();
+        Exception lastError = this.googleSheetsCredentialProvider.getLastError();
+        if (credential == null) {
+            return lastError != null
+                ? Health.down(lastError).build()
+                : Health.unknown().withDetail("reason", "Credential not loaded").build();
+        }
+
+        Long expiresInSeconds = credential.getExpiresInSeconds();
+        Health.Builder health =
+            credential.getAccessToken() == null || (expiresInSeconds != null && expiresInSeconds <= 0)
+                ? Health.down().withDetail("reason", "Access token expired")
+                : Health.up();
+        if (expiresInSeconds != null) {
+            health.withDetail("expiresInSeconds", expiresInSeconds);
+        }
+        // The renewal is retried while the current token is still valid
+        if (lastError != null) {
+            health.withDetail("lastError", lastError.toString());
+        }
+
+        return health.build();
+    }
+}
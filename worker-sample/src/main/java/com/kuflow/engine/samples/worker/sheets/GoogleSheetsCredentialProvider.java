@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
+import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.services.sheets.v4.SheetsScopes;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.HttpProperties;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the Google credential once and shares it between all the requests of the Sheets client. The credential is
+ * loaded and its access token renewed ahead of the requests, by {@link #warmUp()} at startup and then by the
+ * {@link GoogleSheetsCredentialRefresher}, so no request waits for the authorization. Every request also gets the
+ * connect and read timeouts of {@code application.google-sheets.http}.
+ */
+public class GoogleSheetsCredentialProvider implements HttpRequestInitializer {
+
+    public static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+
+    /**
+     * Global instance of the scopes required by this quickstart.
+     * If modifying these scopes, delete your previously saved tokens/ folder.
+     */
+    private static final List<String> SCOPES = Collections.singletonList(SheetsScopes.SPREADSHEETS);
+
+    private static final String USER_ID = "user";
+
+    private final GoogleSheetsProperties googleSheetsProperties;
+
+    private final HttpTransport httpTransport;
+
+    private volatile Credential credential;
+
+    private volatile Exception lastError;
+
+    public GoogleSheetsCredentialProvider(ApplicationProperties applicationProperties, HttpTransport httpTransport) {
+        this.googleSheetsProperties = applicationProperties.getGoogleSheets();
+        this.httpTransport = httpTransport;
+    }
+
+    @Override
+    public void initialize(HttpRequest request) throws IOException {
+        this.getCredential().initialize(request);
+
+        // The client waits 20 seconds by default, a hung request would hold its activity for much longer
+        HttpProperties http = this.googleSheetsProperties.getHttp();
+        request.setConnectTimeout(Math.toIntExact(http.getConnectTimeout().toMillis()));
+        request.setReadTimeout(Math.toIntExact(http.getReadTimeout().toMillis()));
+    }
+
+    /**
+     * Returns the authorized Credential, loading it on first use.
+     * @return An authorized Credential object.
+     * @throws IOException If the credentials file cannot be found.
+     */
+    public Credential getCredential() throws IOException {
+        Credential result = this.credential;
+        if (result == null) {
+            synchronized (this) {
+                result = this.credential;
+                if (result == null) {
+                    try {
+                        result = this.loadCredential();
+                    } catch (IOException | RuntimeException e) {
+                        this.lastError = e;
+                        throw e;
+                    }
+                    this.credential = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Loads the credential and gets an access token valid for at least the refresh margin.
+     *
+     * @throws IOException if the credential cannot be loaded or authorized
+     */
+    public void warmUp() throws IOException {
+        this.getCredential();
+        this.refreshIfExpiring();
+    }
+
+    /**
+     * Renews the access token when it is missing or expires within the refresh margin. Does nothing until the
+     * credential is loaded, so the authorization is never started from here.
+     *
+     * @throws IOException if the token cannot be renewed
+     */
+    public void refreshIfExpiring() throws IOException {
+        Credential credential = this.credential;
+        if (credential == null) {
+            return;
+        }
+
+        Long expiresInSeconds = credential.getExpiresInSeconds();
+        long marginSeconds = this.googleSheetsProperties.getCredentialRefresh().getMargin().toSeconds();
+        if (credential.getAccessToken() != null && (expiresInSeconds == null || expiresInSeconds > marginSeconds)) {
+            return;
+        }
+
+        try {
+            if (!credential.refreshToken()) {
+                throw new IOException("The Google access token could not be renewed");
+            }
+            this.lastError = null;
+        } catch (IOException | RuntimeException e) {
+            this.lastError = e;
+            throw e;
+        }
+    }
+
+    /**
+     * @return the credential, or null while it isn't loaded
+     */
+    public Credential getLoadedCredential() {
+        return this.credential;
+    }
+
+    /**
+     * @return error of the last load or renewal, or null if it succeeded
+     */
+    public Exception getLastError() {
+        return this.lastError;
+    }
+
+    private Credential loadCredential() throws IOException {
+        return switch (this.googleSheetsProperties.getCredentialType()) {
+            case INSTALLED_APP -> this.loadInstalledAppCredential();
+            case SERVICE_ACCOUNT -> this.loadServiceAccountCredential();
+        };
+    }
+
+    // google-auth-library is not a dependency of the worker, GoogleCredential is the service account support of the
+    // google-api-client in use
+    @SuppressWarnings("deprecation")
+    private Credential loadServiceAccountCredential() throws IOException {
+        String credentialsFile = this.googleSheetsProperties.getCredentialsFile();
+
+        try (InputStream in = GoogleSheetsCredentialProvider.class.getResourceAsStream(credentialsFile)) {
+            if (in == null) {
+                throw new FileNotFoundException("Resource not found: " + credentialsFile);
+            }
+
+            return GoogleCredential.fromStream(in, this.httpTransport, JSON_FACTORY).createScoped(SCOPES);
+        }
+    }
+
+    private Credential loadInstalledAppCredential() throws IOException {
+        String credentialsFile = this.googleSheetsProperties.getCredentialsFile();
+
+        // Load client secrets.
+        try (InputStream in = GoogleSheetsCredentialProvider.class.getResourceAsStream(credentialsFile)) {
+            if (in == null) {
+                throw new FileNotFoundException("Resource not found: " + credentialsFile);
+            }
+            GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
+
+            // Build flow and trigger user authorization request.
+            File tokensDirectory = new File(this.googleSheetsProperties.getTokensDirectory());
+            GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
+                this.httpTransport,
+                JSON_FACTORY,
+                clientSecrets,
+                SCOPES
+            )
+                .setDataStoreFactory(new FileDataStoreFactory(tokensDirectory))
+                .setAccessType("offline")
+                .build();
+
+            if (!this.googleSheetsProperties.isInteractiveAuthorization()) {
+                Credential storedCredential = flow.loadCredential(USER_ID);
+                if (storedCredential == null) {
+                    throw new IOException(
+                        "No Google tokens stored in " + tokensDirectory + ", authorize the worker interactively once"
+                    );
+                }
+
+                return storedCredential;
+            }
+
+            LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(8888).build();
+
+            return new AuthorizationCodeInstalledApp(flow, receiver).authorize(USER_ID);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renews the Google access token in the background before it expires, so the Sheets requests never renew it inline.
+ */
+@Component
+public class GoogleSheetsCredentialRefresher implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleSheetsCredentialRefresher.class);
+
+    private final GoogleSheetsCredentialProvider googleSheetsCredentialProvider;
+
+    private final Duration interval;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gsheets-credential-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GoogleSheetsCredentialRefresher(
+        ApplicationProperties applicationProperties,
+        GoogleSheetsCredentialProvider googleSheetsCredentialProvider
+    ) {
+        this.googleSheetsCredentialProvider = googleSheetsCredentialProvider;
+        this.interval = applicationProperties.getGoogleSheets().getCredentialRefresh().getInterval();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long intervalMillis = this.interval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        // A failed renewal is retried on the next run, while the current token is still valid
+        try {
+            this.googleSheetsCredentialProvider.refreshIfExpiring();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error renewing the Google access token", e);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpMethods;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the requests of the Sheets client within the API quota, with a token bucket for the read requests and another
+ * one for the write requests, shared by all the threads of the worker. Every attempt sent by the client waits for its
+ * turn before going out, so the requests are spread over time instead of failing together.
+ *
+ * <p>The rate adapts to the responses: a 429 or 503 halves the rate of its bucket and pauses it with an exponential
+ * backoff, honoring the {@code Retry-After} header, and every successful response brings the rate back towards the
+ * configured one. The throttled requests still fail, so the activity is retried by Temporal. The requests that were
+ * already waiting for their turn when the bucket was paused take a new turn once they wake up, so none of them goes
+ * out during the pause.
+ */
+public class GoogleSheetsRateLimiter implements HttpRequestInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleSheetsRateLimiter.class);
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * The rate is never lowered below this fraction of the configured one.
+     */
+    private static final double MIN_RATE_RATIO = 0.05;
+
+    /**
+     * Fraction of the configured rate given back by every successful response.
+     */
+    private static final double RECOVERY_RATIO = 0.02;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    private final HttpRequestInitializer delegate;
+
+    private final Map<Quota, TokenBucket> buckets = new EnumMap<>(Quota.class);
+
+    public GoogleSheetsRateLimiter(
+        ApplicationProperties applicationProperties,
+        HttpRequestInitializer delegate,
+        MeterRegistry meterRegistry
+    ) {
+        this.rateLimitProperties = applicationProperties.getGoogleSheets().getRateLimit();
+        this.delegate = delegate;
+        this.buckets.put(
+            Quota.READ,
+            new TokenBucket(Quota.READ, this.rateLimitProperties.getReadRequestsPerMinute(), meterRegistry)
+        );
+        this.buckets.put(
+            Quota.WRITE,
+            new TokenBucket(Quota.WRITE, this.rateLimitProperties.getWriteRequestsPerMinute(), meterRegistry)
+        );
+    }
+
+    @Override
+    public void initialize(HttpRequest request) throws IOException {
+        this.delegate.initialize(request);
+        if (!this.rateLimitProperties.isEnabled()) {
+            return;
+        }
+
+        // The credential intercepts the requests too, to add the access token
+        HttpExecuteInterceptor interceptor = request.getInterceptor();
+        request.setInterceptor(executedRequest -> {
+            this.acquire(this.getQuota(executedRequest));
+            if (interceptor != null) {
+                interceptor.intercept(executedRequest);
+            }
+        });
+
+        HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+        request.setResponseInterceptor(response -> {
+            this.onResponse(this.getQuota(response.getRequest()), response);
+            if (responseInterceptor != null) {
+                responseInterceptor.interceptResponse(response);
+            }
+        });
+    }
+
+    private void acquire(Quota quota) throws IOException {
+        TokenBucket bucket = this.buckets.get(quota);
+        long startedAt = System.nanoTime();
+        long maxWaitNanos = this.rateLimitProperties.getMaxWait().toNanos();
+        while (true) {
+            Reservation reservation = bucket.reserve(maxWaitNanos - (System.nanoTime() - startedAt));
+            if (reservation == null) {
+                throw new IOException(
+                    String.format(
+                        "Sheets API %s quota exhausted, no request can be sent within %s",
+                        quota.getTag(),
+                        this.rateLimitProperties.getMaxWait()
+                    )
+                );
+            }
+
+            if (reservation.waitNanos() > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(reservation.waitNanos());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the Sheets API rate limit");
+                }
+            }
+
+            // The turn was given before the bucket was paused, so it may fall within the pause
+            if (bucket.isCurrent(reservation)) {
+                bucket.waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+    }
+
+    private void onResponse(Quota quota, HttpResponse response) {
+        int statusCode = response.getStatusCode();
+        TokenBucket bucket = this.buckets.get(quota);
+        if (statusCode == STATUS_TOO_MANY_REQUESTS || statusCode == STATUS_SERVICE_UNAVAILABLE) {
+            bucket.throttledCounter.increment();
+
+            Duration retryAfter = this.getRetryAfter(response);
+            if (bucket.throttle(retryAfter)) {
+                LOGGER.warn(
+                    "Sheets API responded {} to a {} request, lowering the rate to {} requests per minute",
+                    statusCode,
+                    quota.getTag(),
+                    Math.round(bucket.getRequestsPerMinute())
+                );
+            }
+        } else if (response.isSuccessStatusCode()) {
+            bucket.recover();
+        }
+    }
+
+    private Quota getQuota(HttpRequest request) {
+        // values.get and values.batchGet are the only GET requests, the rest of the methods write
+        return HttpMethods.GET.equals(request.getRequestMethod()) ? Quota.READ : Quota.WRITE;
+    }
+
+    private Duration getRetryAfter(HttpResponse response) {
+        Object retryAfter = response.getHeaders().get("retry-after");
+        if (retryAfter instanceof Iterable<?> values && values.iterator().hasNext()) {
+            retryAfter = values.iterator().next();
+        }
+        if (retryAfter == null) {
+            return Duration.ZERO;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.toString().trim()));
+        } catch (NumberFormatException e) {
+            // The HTTP date form is not used by the Google APIs
+            return Duration.ZERO;
+        }
+    }
+
+    /**
+     * Turn of a request.
+     *
+     * @param waitNanos nanoseconds to wait before sending the request
+     * @param pause pauses of the bucket when the turn was given
+     */
+    private record Reservation(long waitNanos, long pause) {}
+
+    private enum Quota {
+        READ,
+        WRITE;
+
+        String getTag() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Token bucket whose tokens may be reserved ahead, so the waiting requests are let through in order, one every
+     * {@code 1 / rate}, without polling.
+     */
+    private final class TokenBucket {
+
+        private final Timer waitTimer;
+
+        private final Counter throttledCounter;
+
+        private final double configuredRate;
+
+        private final double minRate;
+
+        /**
+         * Tokens per nanosecond.
+         */
+        private double rate;
+
+        /**
+         * Negative when the tokens have been reserved by waiting requests.
+         */
+        private double tokens;
+
+        /**
+         * When the tokens were last refilled, in the future while the bucket is paused.
+         */
+        private long refilledAt;
+
+        private int consecutiveThrottles;
+
+        /**
+         * Times the bucket has been paused, the turns given before the last pause are no longer valid.
+         */
+        private long pauses;
+
+        TokenBucket(Quota quota, int requestsPerMinute, MeterRegistry meterRegistry) {
+            this.waitTimer =
+                Timer
+                    .builder("gsheets.rate.limit.wait")
+                    .description("Time the requests to the Sheets API waited for their turn")
+                    .tag("quota", quota.getTag())
+                    .register(meterRegistry);
+            this.throttledCounter =
+                Counter
+                    .builder("gsheets.rate.limit.throttled")
+                    .description("Requests rejected by the Sheets API for exceeding the quota")
+                    .tag("quota", quota.getTag())
+                    .register(meterRegistry);
+            Gauge
+                .builder("gsheets.rate.limit", this, TokenBucket::getRequestsPerMinute)
+                .description("Requests per minute currently allowed to the Sheets API")
+                .tag("quota", quota.getTag())
+                .register(meterRegistry);
+
+            this.configuredRate = (double) requestsPerMinute / NANOS_PER_MINUTE;
+            this.minRate = this.configuredRate * MIN_RATE_RATIO;
+            this.rate = this.configuredRate;
+            this.tokens = GoogleSheetsRateLimiter.this.rateLimitProperties.getBurst();
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized double getRequestsPerMinute() {
+            return this.rate * NANOS_PER_MINUTE;
+        }
+
+        /**
+         * @param maxWaitNanos max time the caller accepts to wait
+         * @return turn of the request, or null if it would wait longer than allowed, in which case no token is taken
+         */
+        synchronized Reservation reserve(long maxWaitNanos) {
+            long now = System.nanoTime();
+            this.refill(now);
+
+            double tokens = this.tokens - 1;
+            long waitNanos = Math.max(this.refilledAt - now, 0) + (tokens < 0 ? (long) (-tokens / this.rate) : 0);
+            if (waitNanos > maxWaitNanos) {
+                return null;
+            }
+
+            this.tokens = tokens;
+
+            return new Reservation(waitNanos, this.pauses);
+        }
+
+        /**
+         * @param reservation turn given by {@link #reserve}
+         * @return false if the bucket has been paused since the turn was given, which must then be reserved again
+         */
+        synchronized boolean isCurrent(Reservation reservation) {
+            return reservation.pause() == this.pauses;
+        }
+
+        /**
+         * Lowers the rate and pauses the bucket. The responses to the requests that were already in flight when the
+         * bucket was paused do not lower it again.
+         *
+         * @param retryAfter pause requested by the server, zero if none
+         * @return true if the rate was lowered
+         */
+        synchronized boolean throttle(Duration retryAfter) {
+            long now = System.nanoTime();
+            if (this.refilledAt > now) {
+                return false;
+            }
+
+            this.refill(now);
+            this.rate = Math.max(this.rate / 2, this.minRate);
+            this.consecutiveThrottles++;
+
+            // Half of the backoff is jittered, so the workers sharing the quota do not come back all at once
+            RateLimitProperties rateLimitProperties = GoogleSheetsRateLimiter.this.rateLimitProperties;
+            long backoffNanos = Math.min(
+                rateLimitProperties.getInitialBackoff().toNanos() << Math.min(this.consecutiveThrottles - 1, 20),
+                rateLimitProperties.getMaxBackoff().toNanos()
+            );
+            long jitterNanos = ThreadLocalRandom.current().nextLong(backoffNanos / 2 + 1);
+            long pauseNanos = Math.max(backoffNanos - jitterNanos, retryAfter.toNanos());
+
+            // The turns of the waiting requests are cancelled, and their tokens with them, as they reserve new turns
+            // after the pause, at the lowered rate, once they wake up
+            this.tokens = 0;
+            this.refilledAt = now + pauseNanos;
+            this.pauses++;
+
+            return true;
+        }
+
+        synchronized void recover() {
+            this.consecutiveThrottles = 0;
+            this.rate = Math.min(this.rate + this.configuredRate * RECOVERY_RATIO, this.configuredRate);
+        }
+
+        private void refill(long now) {
+            if (now <= this.refilledAt) {
+                return;
+            }
+
+            double capacity = GoogleSheetsRateLimiter.this.rateLimitProperties.getBurst();
+            this.tokens = Math.min(this.tokens + (now - this.refilledAt) * this.rate, capacity);
+            this.refilledAt = now;
+        }
+    }
+}
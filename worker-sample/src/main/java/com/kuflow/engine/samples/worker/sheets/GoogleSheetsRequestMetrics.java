@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every request sent to the Sheets API and counts the failed ones, tagged by operation. The meters are registered
+ * once for each set of tags and reused by the following requests.
+ */
+@Component
+public class GoogleSheetsRequestMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<RequestTags, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    private final Map<ErrorTags, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public GoogleSheetsRequestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Executes the request, recording its duration and its failure if any.
+     *
+     * @param operation Sheets API method, e.g. {@code values.get}
+     * @param request request to execute
+     * @param <T> type of the response
+     * @return the response
+     * @throws IOException if the request fails
+     */
+    public <T> T record(String operation, SheetsRequest<T> request) throws IOException {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "success";
+        try {
+            return request.execute();
+        } catch (IOException | RuntimeException e) {
+            outcome = "error";
+            ErrorTags tags = new ErrorTags(operation, e.getClass().getSimpleName());
+            this.errorCounters.computeIfAbsent(tags, this::registerErrorCounter).increment();
+            throw e;
+        } finally {
+            sample.stop(this.requestTimers.computeIfAbsent(new RequestTags(operation, outcome), this::registerTimer));
+        }
+    }
+
+    private Timer registerTimer(RequestTags tags) {
+        return Timer
+            .builder("gsheets.requests")
+            .description("Duration of the requests to the Sheets API")
+            .tag("operation", tags.operation())
+            .tag("outcome", tags.outcome())
+            .publishPercentileHistogram()
+            .register(this.meterRegistry);
+    }
+
+    private Counter registerErrorCounter(ErrorTags tags) {
+        return Counter
+            .builder("gsheets.requests.errors")
+            .description("Failed requests to the Sheets API")
+            .tag("operation", tags.operation())
+            .tag("exception", tags.exception())
+            .register(this.meterRegistry);
+    }
+
+    private record RequestTags(String operation, String outcome) {}
+
+    private record ErrorTags(String operation, String exception) {}
+
+    @FunctionalInterface
+    public interface SheetsRequest<T> {
+        T execute() throws IOException;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ClearValuesRequest;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties;
+import com.kuflow.engine.samples.worker.seat.SeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatStoreFullException;
+import com.kuflow.engine.samples.worker.seat.SeatStoreSnapshot;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the seats in a Google spreadsheet: the bus billboard in A1:D2, with the seats in C2, the seats available in D2,
+ * and the passengers from row 5 onwards, with the key of their reservation in column D. C2 is the capacity of the
+ * bus, and D2 must be a formula subtracting the passengers from it. The seat of a passenger is the
+ * position of its row, so it is told by the range written when the reservation is appended.
+ *
+ * <p>Several workers may append to the same spreadsheet, each one admitting reservations with its own ledger, so
+ * together they may write more passengers than seats. The spreadsheet orders the appends, so a reservation written
+ * to a row beyond the seats in C2 finds out it came too late: its row is cleared and the reservation refused. Rows are
+ * only cleared beyond the seats, so no reservation within them is ever lost.
+ *
+ * <p>Every read asks only for the cells it needs, so its cost does not grow with the passengers: the occupied seats
+ * are worked out from C2 and D2, whose formula already counts the passengers, instead of downloading their column. The
+ * values are read unformatted, as they are formatted again when rendered, with the dates as formatted strings, and
+ * the responses are trimmed to the values by a field mask.
+ */
+public class GoogleSheetsSeatStore implements SeatStore {
+
+    private static final String VALUE_RENDER_OPTION = "UNFORMATTED_VALUE";
+
+    private static final String DATE_TIME_RENDER_OPTION = "FORMATTED_STRING";
+
+    private static final String MAJOR_DIMENSION = "ROWS";
+
+    private static final String VALUES_FIELDS = "values";
+
+    private static final int SEATS_COLUMN = 2;
+
+    private static final int SEATS_AVAILABLE_COLUMN = 3;
+
+    private static final int FIRST_RESERVATION_ROW = 5;
+
+    private final Sheets sheets;
+
+    private final GoogleSheetsValuesCache valuesCache;
+
+    private final GoogleSheetsAppendCoalescer appendCoalescer;
+
+    private final GoogleSheetsRequestMetrics requestMetrics;
+
+    private final String spreadsheetId;
+
+    private final String seatTableRange;
+
+    private final String seatsAvailableRange;
+
+    private final String seatCountersRange;
+
+    private final String reservationsRange;
+
+    private final String reservationIdsRange;
+
+    private final String sheet;
+
+    public GoogleSheetsSeatStore(
+        GoogleSheetsProperties googleSheetsProperties,
+        Sheets sheets,
+        GoogleSheetsValuesCache valuesCache,
+        GoogleSheetsAppendCoalescer appendCoalescer,
+        GoogleSheetsRequestMetrics requestMetrics
+    ) {
+        this(
+            googleSheetsProperties.getSpreadsheetId(),
+            googleSheetsProperties.getSheetName(),
+            sheets,
+            valuesCache,
+            appendCoalescer,
+            requestMetrics
+        );
+    }
+
+    public GoogleSheetsSeatStore(
+        String spreadsheetId,
+        String sheetName,
+        Sheets sheets,
+        GoogleSheetsValuesCache valuesCache,
+        GoogleSheetsAppendCoalescer appendCoalescer,
+        GoogleSheetsRequestMetrics requestMetrics
+    ) {
+        this.sheets = sheets;
+        this.valuesCache = valuesCache;
+        this.appendCoalescer = appendCoalescer;
+        this.requestMetrics = requestMetrics;
+        this.spreadsheetId = spreadsheetId;
+
+        String sheet = sheetName + "!";
+        this.sheet = sheet;
+        this.seatTableRange = sheet + "A1:D2";
+        this.seatsAvailableRange = sheet + "D2";
+        this.seatCountersRange = sheet + "C2:D2";
+        this.reservationsRange = sheet + "A5:D5";
+        this.reservationIdsRange = sheet + "D5:D";
+    }
+
+    @Override
+    public String getSeatsAvailable() throws IOException {
+        return this.getFirstCellValue(this.readValues(this.seatsAvailableRange));
+    }
+
+    @Override
+    public List<List<Object>> getSeatTable() throws IOException {
+        return this.getRows(this.readValues(this.seatTableRange));
+    }
+
+    @Override
+    public int getOccupiedSeats() throws IOException {
+        List<List<Object>> rows = this.getRows(this.readValues(this.seatCountersRange));
+
+        return rows.isEmpty() ? 0 : this.getOccupiedSeats(rows.get(0), 0);
+    }
+
+    @Override
+    public SeatStoreSnapshot getSnapshot() throws IOException {
+        return this.toSnapshot(this.getRows(this.readValues(this.seatTableRange)));
+    }
+
+    @Override
+    public int appendReservation(String reservationId, List<Object> reservation) throws IOException {
+        // Read before appending, from the cache, as the append drops the cached ranges
+        int capacity = reservationId != null ? this.getCapacity() : Integer.MAX_VALUE;
+
+        // Rows written concurrently by other workflows are appended in the same request
+        int row = this.appendCoalescer.append(
+            this.spreadsheetId,
+            this.reservationsRange,
+            this.toRow(reservationId, reservation)
+        );
+
+        // The ranges read before the append are stale now
+        this.valuesCache.invalidateAll();
+
+        int seat = row - FIRST_RESERVATION_ROW + 1;
+        if (seat > capacity) {
+            this.clearReservation(seat);
+            throw new SeatStoreFullException(
+                String.format("The %d seats of %s were occupied by other workers", capacity, this.spreadsheetId)
+            );
+        }
+
+        return seat;
+    }
+
+    /**
+     * Stores a new reservation without waiting for it to be written.
+     *
+     * @param reservationId key of the reservation, or null if it is not looked up
+     * @param reservation first name, last name and email of the passenger
+     * @return future completed when the reservation has been written
+     */
+    public CompletableFuture<Void> appendReservationAsync(String reservationId, List<Object> reservation) {
+        return this.appendCoalescer
+            .appendAsync(this.spreadsheetId, this.reservationsRange, this.toRow(reservationId, reservation))
+            .thenRun(this.valuesCache::invalidateAll);
+    }
+
+    /**
+     * Reads the keys of all the reservations, bypassing the cache. Only the attempts retried after a failure look up
+     * their reservation, so its cost, which grows with the passengers, is seldom paid.
+     */
+    @Override
+    public OptionalInt findReservation(String reservationId) throws IOException {
+        List<List<Object>> rows = this.getRows(this.fetchValues(this.reservationIdsRange));
+        for (int i = 0; i < rows.size(); i++) {
+            List<Object> row = rows.get(i);
+            if (!row.isEmpty() && reservationId.equals(row.get(0).toString())) {
+                return this.keepWithinCapacity(i + 1);
+            }
+        }
+
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Reads the billboard bypassing the cache, and caches it along with the cells read from it, so the reads of this
+     * store are served from memory until the next refresh.
+     *
+     * @return seats snapshot
+     * @throws IOException if the spreadsheet cannot be read
+     */
+    public SeatStoreSnapshot refreshSnapshot() throws IOException {
+        long generation = this.valuesCache.getGeneration();
+        ValueRange seatTable = this.fetchValues(this.seatTableRange);
+        List<List<Object>> rows = this.getRows(seatTable);
+        List<Object> bus = rows.size() > 1 ? rows.get(1) : List.of();
+
+        this.valuesCache.put(this.spreadsheetId, this.seatTableRange, generation, seatTable);
+        this.valuesCache.put(
+            this.spreadsheetId,
+            this.seatsAvailableRange,
+            generation,
+            this.toValueRange(bus.subList(Math.min(SEATS_AVAILABLE_COLUMN, bus.size()), bus.size()))
+        );
+        this.valuesCache.put(
+            this.spreadsheetId,
+            this.seatCountersRange,
+            generation,
+            this.toValueRange(bus.subList(Math.min(SEATS_COLUMN, bus.size()), bus.size()))
+        );
+
+        return this.toSnapshot(rows);
+    }
+
+    public String getSpreadsheetId() {
+        return this.spreadsheetId;
+    }
+
+    /**
+     * A reservation found beyond the seats was written by an attempt that failed before clearing it, so it is cleared
+     * now and reported as not written.
+     */
+    private OptionalInt keepWithinCapacity(int seat) throws IOException {
+        if (seat <= this.getCapacity()) {
+            return OptionalInt.of(seat);
+        }
+
+        this.clearReservation(seat);
+
+        return OptionalInt.empty();
+    }
+
+    private void clearReservation(int seat) throws IOException {
+        int row = seat + FIRST_RESERVATION_ROW - 1;
+        String range = this.sheet + "A" + row + ":D" + row;
+        this.requestMetrics.record(
+            "values.clear",
+            () ->
+                this.sheets
+                    .spreadsheets()
+                    .values()
+                    .clear(this.spreadsheetId, range, new ClearValuesRequest())
+                    .execute()
+        );
+        this.valuesCache.invalidateAll();
+    }
+
+    /**
+     * @return seats of the bus, from C2
+     */
+    @Override
+    public int getCapacity() throws IOException {
+        List<List<Object>> rows = this.getRows(this.readValues(this.seatCountersRange));
+        if (rows.isEmpty() || rows.get(0).isEmpty()) {
+            throw new IOException("The seats of " + this.spreadsheetId + " are missing from " + this.seatCountersRange);
+        }
+
+        return this.toInt(rows.get(0).get(0));
+    }
+
+    private ValueRange readValues(String range) throws IOException {
+        return this.valuesCache.get(this.spreadsheetId, range, () -> this.fetchValues(range));
+    }
+
+    private ValueRange fetchValues(String range) throws IOException {
+        return this.requestMetrics.record(
+            "values.get",
+            () ->
+                this.sheets
+                    .spreadsheets()
+                    .values()
+                    .get(this.spreadsheetId, range)
+                    .setMajorDimension(MAJOR_DIMENSION)
+                    .setValueRenderOption(VALUE_RENDER_OPTION)
+                    .setDateTimeRenderOption(DATE_TIME_RENDER_OPTION)
+                    .setFields(VALUES_FIELDS)
+                    .execute()
+        );
+    }
+
+    private SeatStoreSnapshot toSnapshot(List<List<Object>> seatTable) throws IOException {
+        // The billboard already holds the seats available and the counters of the occupied seats
+        if (seatTable.size() < 2) {
+            return new SeatStoreSnapshot("", seatTable, 0);
+        }
+
+        List<Object> bus = seatTable.get(1);
+        String seatsAvailable = bus.size() > SEATS_AVAILABLE_COLUMN ? bus.get(SEATS_AVAILABLE_COLUMN).toString() : "";
+
+        return new SeatStoreSnapshot(seatsAvailable, seatTable, this.getOccupiedSeats(bus, SEATS_COLUMN));
+    }
+
+    private List<Object> toRow(String reservationId, List<Object> reservation) {
+        if (reservationId == null) {
+            return reservation;
+        }
+
+        List<Object> row = new ArrayList<>(reservation);
+        row.add(reservationId);
+
+        return row;
+    }
+
+    private ValueRange toValueRange(List<Object> row) {
+        // As the API, a range without values has no rows
+        return new ValueRange().setValues(row.isEmpty() ? null : List.of(List.copyOf(row)));
+    }
+
+    private List<List<Object>> getRows(ValueRange valueRange) {
+        List<List<Object>> values = valueRange.getValues();
+
+        return values != null ? values : List.of();
+    }
+
+    private String getFirstCellValue(ValueRange valueRange) {
+        List<List<Object>> values = this.getRows(valueRange);
+        if (values.isEmpty() || values.get(0).isEmpty()) {
+            return "";
+        }
+
+        return values.get(0).get(0).toString();
+    }
+
+    /**
+     * @param row row holding the seats and the seats available
+     * @param seatsColumn column of the seats in the row, the seats available follow it
+     * @return seats minus seats available, the passengers counted by the formula of the seats available
+     */
+    private int getOccupiedSeats(List<Object> row, int seatsColumn) throws IOException {
+        if (row.size() <= seatsColumn + 1) {
+            return 0;
+        }
+
+        return this.toInt(row.get(seatsColumn)) - this.toInt(row.get(seatsColumn + 1));
+    }
+
+    private int toInt(Object value) throws IOException {
+        try {
+            // Unformatted numbers are parsed as BigDecimal, a text cell comes as a String
+            return new BigDecimal(value.toString().trim()).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IOException("The seat counters of " + this.spreadsheetId + " must be whole numbers: " + value, e);
+        }
+    }
+}
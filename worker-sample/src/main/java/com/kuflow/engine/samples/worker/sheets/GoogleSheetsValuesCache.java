@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of the ranges read from the spreadsheet. Entries expire after the configured TTL and are dropped as
+ * soon as the spreadsheet is written from this worker. Hits and misses are published as the {@code cache.gets} metric.
+ *
+ * <p>A read may still be in flight when the spreadsheet is written, and its values may not include the write. Every
+ * write starts a new generation of the cache, and the values are kept with the generation their read started in, so
+ * those of a read started before the last write are discarded and read again instead of being served until they
+ * expire.
+ */
+@Component
+public class GoogleSheetsValuesCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "gsheets.values";
+
+    private final boolean enabled;
+
+    private final Cache<String, CachedValues> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public GoogleSheetsValuesCache(ApplicationProperties applicationProperties) {
+        CacheProperties cacheProperties = applicationProperties.getGoogleSheets().getCache();
+
+        this.enabled = cacheProperties.isEnabled();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .expireAfterWrite(cacheProperties.getTtl())
+                .maximumSize(cacheProperties.getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached values of the range, loading them when they are missing or expired.
+     *
+     * @param spreadsheetId spreadsheet that owns the range
+     * @param range range in A1 notation
+     * @param loader remote read used on a miss
+     * @return values of the range
+     * @throws IOException if the remote read fails
+     */
+    public ValueRange get(String spreadsheetId, String range, ValuesLoader loader) throws IOException {
+        if (!this.enabled) {
+            return loader.load();
+        }
+
+        String key = this.key(spreadsheetId, range);
+        while (true) {
+            long generation = this.generation.get();
+            CachedValues cached;
+            try {
+                cached = this.cache.get(key, missingKey -> new CachedValues(generation, this.load(loader)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (this.isCurrent(key, cached)) {
+                return cached.values();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached values of several ranges. The ranges that are missing or expired are loaded together, so a
+     * single remote read is done at most.
+     *
+     * @param spreadsheetId spreadsheet that owns the ranges
+     * @param ranges ranges in A1 notation
+     * @param loader remote read of the missing ranges, it must return the values in the same order as requested
+     * @return values of each range, in the same order as requested
+     * @throws IOException if the remote read fails
+     */
+    public List<ValueRange> getAll(String spreadsheetId, List<String> ranges, BatchValuesLoader loader)
+        throws IOException {
+        if (!this.enabled) {
+            return loader.load(ranges);
+        }
+
+        Map<String, String> rangesByKey = new HashMap<>();
+        for (String range : ranges) {
+            rangesByKey.put(this.key(spreadsheetId, range), range);
+        }
+
+        while (true) {
+            long generation = this.generation.get();
+            Map<String, CachedValues> values;
+            try {
+                values =
+                    this.cache.getAll(
+                        rangesByKey.keySet(),
+                        keys -> this.loadAll(rangesByKey, keys, generation, loader)
+                    );
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Evaluated for every range, so all the stale ones are dropped before reading them again
+            boolean current = true;
+            for (Map.Entry<String, CachedValues> entry : values.entrySet()) {
+                current &= this.isCurrent(entry.getKey(), entry.getValue());
+            }
+            if (current) {
+                return ranges.stream().map(range -> values.get(this.key(spreadsheetId, range)).values()).toList();
+            }
+        }
+    }
+
+    /**
+     * Stores values read elsewhere, replacing those cached for the range, unless the spreadsheet has been written since
+     * they were read.
+     *
+     * @param spreadsheetId spreadsheet that owns the range
+     * @param range range in A1 notation
+     * @param generation {@link #getGeneration() generation} taken before reading the values
+     * @param values values of the range
+     */
+    public void put(String spreadsheetId, String range, long generation, ValueRange values) {
+        if (this.enabled) {
+            String key = this.key(spreadsheetId, range);
+            CachedValues cached = new CachedValues(generation, values);
+            this.cache.put(key, cached);
+            this.isCurrent(key, cached);
+        }
+    }
+
+    /**
+     * @return current generation, to be taken before a read whose values are {@link #put} afterwards
+     */
+    public long getGeneration() {
+        return this.generation.get();
+    }
+
+    public void invalidateAll() {
+        // The generation goes first, so the reads in flight can't store their values after the entries are dropped
+        this.generation.incrementAndGet();
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, CACHE_NAME);
+    }
+
+    private String key(String spreadsheetId, String range) {
+        return spreadsheetId + "/" + range;
+    }
+
+    /**
+     * Drops the cached values if they were read before the last write.
+     *
+     * @return true if the values are current
+     */
+    private boolean isCurrent(String key, CachedValues cached) {
+        if (cached.generation() == this.generation.get()) {
+            return true;
+        }
+
+        this.cache.asMap().remove(key, cached);
+
+        return false;
+    }
+
+    private ValueRange load(ValuesLoader loader) {
+        try {
+            return loader.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, CachedValues> loadAll(
+        Map<String, String> rangesByKey,
+        Iterable<? extends String> missingKeys,
+        long generation,
+        BatchValuesLoader loader
+    ) {
+        List<String> keys = new ArrayList<>();
+        List<String> ranges = new ArrayList<>();
+        for (String key : missingKeys) {
+            keys.add(key);
+            ranges.add(rangesByKey.get(key));
+        }
+
+        List<ValueRange> values;
+        try {
+            values = loader.load(ranges);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, CachedValues> valuesByKey = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            valuesByKey.put(keys.get(i), new CachedValues(generation, values.get(i)));
+        }
+
+        return valuesByKey;
+    }
+
+    private record CachedValues(long generation, ValueRange values) {}
+
+    @FunctionalInterface
+    public interface ValuesLoader {
+        ValueRange load() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BatchValuesLoader {
+        List<ValueRange> load(List<String> ranges) throws IOException;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.kuflow.engine.client.common.resource.WorkflowRequestResource;
+import com.kuflow.engine.client.common.resource.WorkflowResponseResource;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Workflow;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SeatWaitlistWorkflowImplTest {
+
+    private static final String TASK_QUEUE = "waitlist";
+
+    private static final String WAITLIST_WORKFLOW_ID = SeatWaitlistWorkflowImpl.getWorkflowId("line-1");
+
+    private static final List<String> RELEASED_WORKFLOW_IDS = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Shard each reservation waits on, by reservation workflow id.
+     */
+    private static final Map<String, String> SHARD_WORKFLOW_IDS = new ConcurrentHashMap<>();
+
+    private TestWorkflowEnvironment testEnvironment;
+
+    private WorkflowClient workflowClient;
+
+    private SeatWaitlistWorkflow waitlist;
+
+    private int shardTurns;
+
+    @BeforeEach
+    void setUp() {
+        RELEASED_WORKFLOW_IDS.clear();
+        SHARD_WORKFLOW_IDS.clear();
+
+        // The time skipped while the workflows signal each other would time the waitlist out
+        this.testEnvironment =
+            TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder().setUseTimeskipping(false).build());
+        Worker worker = this.testEnvironment.newWorker(TASK_QUEUE);
+        worker.addWorkflowImplementationFactory(
+            SeatWaitlistWorkflow.class,
+            () -> new SeatWaitlistWorkflowImpl(this.shardTurns)
+        );
+        worker.registerWorkflowImplementationTypes(SeatWaitlistShardWorkflowImpl.class, WaitingReservation.class);
+        this.testEnvironment.start();
+        this.workflowClient = this.testEnvironment.getWorkflowClient();
+        // Not bound to the first run, so the signals still reach the waitlist once it has continued as new
+        this.waitlist = this.workflowClient.newWorkflowStub(SeatWaitlistWorkflow.class, WAITLIST_WORKFLOW_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.testEnvironment.close();
+    }
+
+    @Test
+    void reservationsAreReleasedInTheOrderTheyJoined() {
+        this.startWaitlist(2);
+        this.startReservations("first", "second", "third");
+        this.waitlist.join("first");
+        this.waitlist.join("second");
+        this.waitlist.join("third");
+
+        this.waitlist.seatsChanged("1");
+        this.awaitFinished("first");
+        assertEquals(List.of("first"), RELEASED_WORKFLOW_IDS);
+
+        // The seat of the first one is still promised to it until it leaves
+        this.waitlist.seatsChanged("2");
+        this.awaitFinished("second");
+        assertEquals(List.of("first", "second"), RELEASED_WORKFLOW_IDS);
+    }
+
+    @Test
+    void reservationThatLeftIsSkipped() {
+        this.startWaitlist(2);
+        this.startReservations("first", "second");
+        this.waitlist.join("first");
+        this.waitlist.join("second");
+        this.leaveShard("first");
+
+        this.waitlist.seatsChanged("1");
+
+        this.awaitFinished("second");
+        assertEquals(List.of("second"), RELEASED_WORKFLOW_IDS);
+    }
+
+    @Test
+    void reservationThatJoinedAgainWaitsBehindTheOthers() {
+        this.startWaitlist(2);
+        this.startReservations("first", "second");
+        this.waitlist.join("first");
+        this.waitlist.join("second");
+        this.leaveShard("first");
+        this.waitlist.join("first");
+
+        this.waitlist.seatsChanged("1");
+        this.awaitFinished("second");
+        assertEquals(List.of("second"), RELEASED_WORKFLOW_IDS);
+
+        this.waitlist.seatsChanged("2");
+        this.awaitFinished("first");
+        assertEquals(List.of("second", "first"), RELEASED_WORKFLOW_IDS);
+    }
+
+    @Test
+    void seatGivenBackGoesToTheNextReservation() {
+        this.startWaitlist(2);
+        this.startReservations("first", "second");
+        this.waitlist.join("first");
+        this.waitlist.join("second");
+        this.waitlist.seatsChanged("1");
+        this.awaitFinished("first");
+
+        // The first one got its seat and left, and the seat was cancelled afterwards
+        this.waitlist.leave("first");
+        this.waitlist.seatsChanged("1");
+
+        this.awaitFinished("second");
+        assertEquals(List.of("first", "second"), RELEASED_WORKFLOW_IDS);
+    }
+
+    @Test
+    void reservationsAreReleasedInOrderAcrossShards() {
+        this.startWaitlist(2);
+        List<String> workflowIds = List.of("first", "second", "third", "fourth", "fifth");
+        this.startReservations(workflowIds.toArray(String[]::new));
+        for (String workflowId : workflowIds) {
+            this.waitlist.join(workflowId);
+        }
+
+        // One more seat every time, so each reservation is released after the one before has been
+        for (int seats = 1; seats <= workflowIds.size(); seats++) {
+            this.waitlist.seatsChanged(String.valueOf(seats));
+            this.awaitFinished(workflowIds.get(seats - 1));
+        }
+        assertEquals(workflowIds, RELEASED_WORKFLOW_IDS);
+    }
+
+    @Test
+    void reservationWaitsBehindAnyNumberOfReservations() {
+        this.startWaitlist(500);
+        this.startReservations("last");
+        // Reservations already closed, the shards drop them once they can't tell them they joined
+        for (int i = 0; i < 1_000; i++) {
+            this.waitlist.join("reservation-" + i);
+        }
+        // The waitlist continues as new meanwhile, with the turns taken
+        this.signalNewRun(seatWaitlist -> seatWaitlist.join("last"));
+        this.awaitJoined("last");
+
+        this.signalNewRun(seatWaitlist -> seatWaitlist.seatsChanged("1"));
+
+        this.awaitFinished("last");
+        assertEquals(List.of("last"), RELEASED_WORKFLOW_IDS);
+        String shardWorkflowId = SeatWaitlistWorkflowImpl.getShardWorkflowId(WAITLIST_WORKFLOW_ID, 2);
+        assertEquals(shardWorkflowId, SHARD_WORKFLOW_IDS.get("last"));
+    }
+
+    private void startWaitlist(int shardTurns) {
+        this.shardTurns = shardTurns;
+        SeatWaitlistWorkflow seatWaitlist = this.workflowClient.newWorkflowStub(
+            SeatWaitlistWorkflow.class,
+            this.workflowOptions(WAITLIST_WORKFLOW_ID)
+        );
+        WorkflowClient.start(seatWaitlist::runWaitlist, 0L, 0L, List.of(), List.of(), 0);
+    }
+
+    /**
+     * Leaves the shard the reservation waits on, as the reservation does until it is released.
+     */
+    private void leaveShard(String workflowId) {
+        String shardWorkflowId = this.awaitJoined(workflowId);
+        this.workflowClient.newWorkflowStub(SeatWaitlistShardWorkflow.class, shardWorkflowId).leave(workflowId);
+        SHARD_WORKFLOW_IDS.remove(workflowId);
+    }
+
+    private String awaitJoined(String workflowId) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!SHARD_WORKFLOW_IDS.containsKey(workflowId)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Reservation " + workflowId + " did not join a shard");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+
+        return SHARD_WORKFLOW_IDS.get(workflowId);
+    }
+
+    /**
+     * Signals the waitlist once it has continued as new. The test server doesn't find the waitlist for a moment while
+     * it does, where a real server sends the signal to the new run.
+     */
+    private void signalNewRun(Consumer<SeatWaitlistWorkflow> signal) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                signal.accept(this.waitlist);
+                return;
+            } catch (WorkflowNotFoundException e) {
+                if (attempt == 10) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private void startReservations(String... workflowIds) {
+        for (String workflowId : workflowIds) {
+            SampleWorkflow reservation = this.workflowClient.newWorkflowStub(
+                SampleWorkflow.class,
+                this.workflowOptions(workflowId)
+            );
+            WorkflowClient.start(reservation::runWorkflow, new WorkflowRequestResource());
+        }
+    }
+
+    private void awaitFinished(String workflowId) {
+        try {
+            this.workflowClient.newUntypedWorkflowStub(workflowId)
+                .getResult(10, TimeUnit.SECONDS, WorkflowResponseResource.class);
+        } catch (Exception e) {
+            throw new AssertionError("Reservation " + workflowId + " did not finish", e);
+        }
+    }
+
+    private WorkflowOptions workflowOptions(String workflowId) {
+        return WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).setWorkflowId(workflowId).build();
+    }
+
+    /**
+     * Reservation parked on the waitlist, it ends as soon as its turn comes.
+     */
+    public static class WaitingReservation implements SampleWorkflow {
+
+        private boolean seatReleased;
+
+        @Override
+        public WorkflowResponseResource runWorkflow(WorkflowRequestResource request) {
+            Workflow.await(() -> this.seatReleased);
+
+            return new WorkflowResponseResource();
+        }
+
+        @Override
+        public void seatReleased() {
+            if (!this.seatReleased) {
+                this.seatReleased = true;
+                RELEASED_WORKFLOW_IDS.add(Workflow.getInfo().getWorkflowId());
+            }
+        }
+
+        @Override
+        public void waitlistJoined(String waitlistShardWorkflowId) {
+            SHARD_WORKFLOW_IDS.put(Workflow.getInfo().getWorkflowId(), waitlistShardWorkflowId);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.activity.GSheetsActivitiesImpl.ReservationAttempt;
+import com.kuflow.engine.samples.worker.seat.InMemorySeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatLedger;
+import com.kuflow.engine.samples.worker.seat.SeatStore;
+import com.kuflow.engine.samples.worker.seat.SeatStoreFullException;
+import com.kuflow.engine.samples.worker.seat.SeatStoreSnapshot;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GSheetsActivitiesImplTest {
+
+    private static final int CAPACITY = 10;
+
+    private FlakySeatStore seatStore;
+
+    private GSheetsActivitiesImpl gSheetsActivities;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSeats().setCapacity(CAPACITY);
+
+        SeatLedger seatLedger = new SeatLedger(applicationProperties);
+        seatLedger.reconcile(0);
+        this.seatStore = new FlakySeatStore(new InMemorySeatStore(applicationProperties.getSeats()));
+        this.gSheetsActivities = new GSheetsActivitiesImpl(this.seatStore, seatLedger);
+    }
+
+    @Test
+    void failedAppendGivesTheSeatBack() throws IOException {
+        this.seatStore.failAppend = Failure.BEFORE_WRITING;
+        assertThrows(RuntimeException.class, () -> this.reserve("reservation", false));
+
+        assertEquals("1", this.reserve("reservation", true));
+        this.fillTheBus();
+        assertEquals(CAPACITY, this.seatStore.getOccupiedSeats());
+    }
+
+    @Test
+    void retryOfWrittenReservationReturnsItsSeat() throws IOException {
+        this.reserve("first", false);
+        this.seatStore.failAppend = Failure.AFTER_WRITING;
+        assertThrows(RuntimeException.class, () -> this.reserve("reservation", false));
+
+        assertEquals("2", this.reserve("reservation", true));
+        assertEquals(2, this.seatStore.getOccupiedSeats());
+        this.fillTheBus();
+        assertEquals(CAPACITY, this.seatStore.getOccupiedSeats());
+    }
+
+    @Test
+    void storeFilledByOtherWorkersReservesNoSeat() throws IOException {
+        this.seatStore.failAppend = Failure.FULL;
+        assertNull(this.reserve("reservation", false));
+
+        // The ledger is taken as full until the next reconciliation
+        assertNull(this.reserve("other", false));
+        assertEquals(0, this.seatStore.getOccupiedSeats());
+    }
+
+    @Test
+    void concurrentReservationsGetDifferentSeats() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> reservations = new ArrayList<>();
+        try {
+            for (int i = 0; i < CAPACITY * 3; i++) {
+                String reservationId = "reservation-" + i;
+                reservations.add(executor.submit(() -> this.reserve(reservationId, false)));
+            }
+
+            Set<String> seats = new HashSet<>();
+            int full = 0;
+            for (Future<String> reservation : reservations) {
+                String seat = reservation.get(5, TimeUnit.SECONDS);
+                if (seat == null) {
+                    full++;
+                } else {
+                    assertTrue(seats.add(seat), "Seat " + seat + " reserved twice");
+                }
+            }
+            assertEquals(CAPACITY, seats.size());
+            assertEquals(CAPACITY * 2, full);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reservationIsNotWrittenWhileAnotherAttemptWritesIt() {
+        this.seatStore.blockedReservationIds.add("reservation");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> firstAttempt = executor.submit(() -> this.reserve("reservation", false));
+            this.seatStore.awaitBlocked();
+
+            assertThrows(IllegalStateException.class, () -> this.reserve("reservation", true));
+
+            this.seatStore.unblock();
+            assertEquals("1", firstAttempt.get(5, TimeUnit.SECONDS));
+            assertEquals("1", this.reserve("reservation", true));
+            assertEquals(1, this.seatStore.getOccupiedSeats());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullBusReservesNoSeat() {
+        this.fillTheBus();
+
+        assertNull(this.reserve("late", false));
+    }
+
+    private String reserve(String reservationId, boolean retried) {
+        return this.gSheetsActivities.reserveSeat(
+            new ReservationAttempt(reservationId, retried),
+            "Ada",
+            "Lovelace",
+            "ada@example.com"
+        );
+    }
+
+    private void fillTheBus() {
+        for (int i = 0; this.reserve("filler-" + i, false) != null; i++) {
+            // Until the bus is full
+        }
+    }
+
+    private enum Failure {
+        NONE,
+        BEFORE_WRITING,
+        AFTER_WRITING,
+        FULL,
+    }
+
+    /**
+     * Fails the next append as asked, and holds the appends of the blocked reservations until unblocked.
+     */
+    private static final class FlakySeatStore implements SeatStore {
+
+        private final SeatStore delegate;
+
+        private final Set<String> blockedReservationIds = ConcurrentHashMap.newKeySet();
+
+        private final Object lock = new Object();
+
+        private volatile Failure failAppend = Failure.NONE;
+
+        private boolean blocked;
+
+        private boolean unblocked;
+
+        FlakySeatStore(SeatStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getSeatsAvailable() throws IOException {
+            return this.delegate.getSeatsAvailable();
+        }
+
+        @Override
+        public List<List<Object>> getSeatTable() throws IOException {
+            return this.delegate.getSeatTable();
+        }
+
+        @Override
+        public int getCapacity() throws IOException {
+            return this.delegate.getCapacity();
+        }
+
+        @Override
+        public int getOccupiedSeats() throws IOException {
+            return this.delegate.getOccupiedSeats();
+        }
+
+        @Override
+        public SeatStoreSnapshot getSnapshot() throws IOException {
+            return this.delegate.getSnapshot();
+        }
+
+        @Override
+        public int appendReservation(String reservationId, List<Object> reservation) throws IOException {
+            Failure failure = this.failAppend;
+            this.failAppend = Failure.NONE;
+            if (failure == Failure.BEFORE_WRITING) {
+                throw new IOException("Append failed");
+            }
+            if (failure == Failure.FULL) {
+                throw new SeatStoreFullException("Seats occupied by other workers");
+            }
+            if (this.blockedReservationIds.remove(reservationId)) {
+                this.block();
+            }
+
+            int seat = this.delegate.appendReservation(reservationId, reservation);
+            if (failure == Failure.AFTER_WRITING) {
+                throw new IOException("Response lost");
+            }
+
+            return seat;
+        }
+
+        @Override
+        public OptionalInt findReservation(String reservationId) throws IOException {
+            return this.delegate.findReservation(reservationId);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            synchronized (this.lock) {
+                while (!this.blocked) {
+                    this.lock.wait();
+                }
+            }
+        }
+
+        void unblock() {
+            synchronized (this.lock) {
+                this.unblocked = true;
+                this.lock.notifyAll();
+            }
+        }
+
+        private void block() throws IOException {
+            synchronized (this.lock) {
+                this.blocked = true;
+                this.lock.notifyAll();
+                while (!this.unblocked) {
+                    try {
+                        this.lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+            }
+        }
+    }
+}
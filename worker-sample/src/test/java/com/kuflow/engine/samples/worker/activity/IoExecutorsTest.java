@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.activity;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IoExecutorsTest {
+
+    @Test
+    void executorRejectsTasksOnceTheQueueIsFull() throws InterruptedException {
+        ExecutorService executor = IoExecutors.newIoExecutor(2, 3, "test-io-");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(5);
+        try {
+            for (int i = 0; i < 5; i++) {
+                executor.execute(() -> {
+                    await(release);
+                    completed.countDown();
+                });
+            }
+
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+
+            release.countDown();
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SeatTableRendererTest {
+
+    private static final String BLANK = " ".repeat(15);
+
+    @Test
+    void rowsArePaddedAsWithStringFormat() {
+        List<List<Object>> rows = List.of(
+            List.of("Bus", "Schedule", "Seats", "Seats Available"),
+            List.of(1, "8:15", 50, 12)
+        );
+
+        StringBuilder expected = new StringBuilder("<pre>");
+        for (List<Object> row : rows) {
+            for (Object cell : row) {
+                expected.append("|").append(String.format("%-15s", cell));
+            }
+            expected.append(" | \r\n");
+        }
+        expected.append("</pre>");
+
+        assertEquals(expected.toString(), SeatTableRenderer.render(rows));
+    }
+
+    @Test
+    void missingCellsAreBlank() {
+        assertEquals(
+            "<pre>|Ada            |" + BLANK + "|" + BLANK + "|" + BLANK + " | \r\n</pre>",
+            SeatTableRenderer.render(List.of(List.of("Ada")))
+        );
+    }
+
+    @Test
+    void longValuesAreNotTruncatedAndExtraCellsAreDropped() {
+        String value = "A value longer than the column";
+
+        assertEquals(
+            "<pre>|" + value + "|" + BLANK + "|" + BLANK + "|" + BLANK + " | \r\n</pre>",
+            SeatTableRenderer.render(List.of(List.of(value, "", "", "", "Fifth column")))
+        );
+    }
+
+    @Test
+    void noRowsRenderAnEmptyTable() {
+        assertEquals("<pre></pre>", SeatTableRenderer.render(null));
+        assertEquals("<pre></pre>", SeatTableRenderer.render(List.of()));
+    }
+
+    @Test
+    void rowsAreAppendedToTheBuffer() {
+        List<List<Object>> rows = List.of(List.of("1", "8:15", "50", "12"));
+        StringBuilder output = new StringBuilder("<pre>");
+
+        SeatTableRenderer.appendRows(output, rows);
+
+        assertEquals(SeatTableRenderer.render(rows), output.append("</pre>").toString());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import static com.kuflow.engine.samples.worker.converter.ZlibPayloadCodecTest.getEncoding;
+import static com.kuflow.engine.samples.worker.converter.ZlibPayloadCodecTest.payload;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties.ClaimCheckProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class ClaimCheckPayloadCodecTest {
+
+    private final InMemoryPayloadStore payloadStore = new InMemoryPayloadStore();
+
+    @Test
+    void largePayloadIsMovedToTheStore() {
+        ClaimCheckPayloadCodec codec = this.newCodec(true);
+        Payload payload = payload("x".repeat(2_048));
+
+        Payload reference = codec.encode(payload);
+
+        assertEquals(ClaimCheckPayloadCodec.ENCODING_TYPE, getEncoding(reference));
+        String key = reference.getData().toStringUtf8();
+        assertTrue(key.matches("[0-9a-f]{64}"), key);
+        assertEquals(1, this.payloadStore.payloads.size());
+        assertEquals(payload, codec.decode(reference));
+    }
+
+    @Test
+    void samePayloadIsStoredUnderTheSameKey() {
+        ClaimCheckPayloadCodec codec = this.newCodec(true);
+        Payload payload = payload("x".repeat(2_048));
+
+        assertEquals(codec.encode(payload), codec.encode(payload));
+        assertEquals(1, this.payloadStore.payloads.size());
+    }
+
+    @Test
+    void referenceIsResolvedFromTheStoreByAnotherWorker() {
+        Payload payload = payload("x".repeat(2_048));
+        Payload reference = this.newCodec(true).encode(payload);
+
+        // A codec with an empty cache, disabled, as a worker that never moved a payload
+        assertEquals(payload, this.newCodec(false).decode(reference));
+    }
+
+    @Test
+    void smallPayloadIsKeptInTheHistory() {
+        ClaimCheckPayloadCodec codec = this.newCodec(true);
+        Payload payload = payload("{\"seats\":\"12\"}");
+
+        assertSame(payload, codec.encode(payload));
+        assertSame(payload, codec.decode(payload));
+        assertTrue(this.payloadStore.payloads.isEmpty());
+    }
+
+    @Test
+    void missingPayloadFailsTheConversion() {
+        ByteString encoding = ByteString.copyFromUtf8(ClaimCheckPayloadCodec.ENCODING_TYPE);
+        Payload reference = Payload
+            .newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, encoding)
+            .setData(ByteString.copyFromUtf8("0".repeat(64)))
+            .build();
+
+        assertThrows(DataConverterException.class, () -> this.newCodec(true).decode(reference));
+    }
+
+    @Test
+    void referenceFailsWithoutAStore() {
+        Payload reference = this.newCodec(true).encode(payload("x".repeat(2_048)));
+
+        ClaimCheckPayloadCodec codec = new ClaimCheckPayloadCodec(
+            null,
+            new ClaimCheckProperties(),
+            new SimpleMeterRegistry()
+        );
+
+        assertThrows(DataConverterException.class, () -> codec.decode(reference));
+    }
+
+    private ClaimCheckPayloadCodec newCodec(boolean enabled) {
+        ClaimCheckProperties claimCheck = new ClaimCheckProperties();
+        claimCheck.setEnabled(enabled);
+        claimCheck.setThreshold(DataSize.ofKilobytes(1));
+
+        return new ClaimCheckPayloadCodec(this.payloadStore, claimCheck, new SimpleMeterRegistry());
+    }
+
+    private static final class InMemoryPayloadStore implements PayloadStore {
+
+        private final Map<String, byte[]> payloads = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(String key, byte[] data) {
+            this.payloads.putIfAbsent(key, data);
+        }
+
+        @Override
+        public byte[] get(String key) throws IOException {
+            byte[] data = this.payloads.get(key);
+            if (data == null) {
+                throw new NoSuchFileException(key);
+            }
+
+            return data;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemPayloadStoreTest {
+
+    private static final String KEY = "ab" + "0".repeat(62);
+
+    private static final byte[] DATA = "payload".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private FileSystemPayloadStore payloadStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.payloadStore = new FileSystemPayloadStore(this.directory, Duration.ofDays(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.payloadStore.close();
+    }
+
+    @Test
+    void storedPayloadIsRead() throws IOException {
+        this.payloadStore.put(KEY, DATA);
+
+        assertArrayEquals(DATA, this.payloadStore.get(KEY));
+        assertEquals(0, this.payloadStore.deleteExpired());
+    }
+
+    @Test
+    void keysOtherThanAHashAreRejected() {
+        for (String key : new String[] { "ab", "../../etc/passwd", "AB" + "0".repeat(62), "0".repeat(65) }) {
+            assertThrows(IOException.class, () -> this.payloadStore.put(key, DATA), key);
+            assertThrows(IOException.class, () -> this.payloadStore.get(key), key);
+        }
+    }
+
+    @Test
+    void expiredPayloadIsDeleted() throws IOException {
+        this.payloadStore.put(KEY, DATA);
+        this.expire(KEY);
+
+        assertEquals(1, this.payloadStore.deleteExpired());
+        assertThrows(IOException.class, () -> this.payloadStore.get(KEY));
+    }
+
+    @Test
+    void payloadStoredAgainIsKept() throws IOException {
+        this.payloadStore.put(KEY, DATA);
+        this.expire(KEY);
+
+        this.payloadStore.put(KEY, DATA);
+
+        assertEquals(0, this.payloadStore.deleteExpired());
+        assertArrayEquals(DATA, this.payloadStore.get(KEY));
+    }
+
+    @Test
+    void payloadReadIsKept() throws IOException {
+        this.payloadStore.put(KEY, DATA);
+        this.expire(KEY);
+
+        assertArrayEquals(DATA, this.payloadStore.get(KEY));
+
+        assertEquals(0, this.payloadStore.deleteExpired());
+    }
+
+    private void expire(String key) throws IOException {
+        Path file = this.directory.resolve(key.substring(0, 2)).resolve(key);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import com.kuflow.engine.samples.worker.ApplicationProperties.TemporalProperties.PayloadsProperties;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class ZlibPayloadCodecTest {
+
+    @Test
+    void largePayloadIsCompressedAndRestored() {
+        ZlibPayloadCodec codec = new ZlibPayloadCodec(payloadsProperties(true));
+        Payload payload = payload("{\"seats\":\"" + "12,".repeat(2_000) + "\"}");
+
+        Payload encoded = codec.encode(payload);
+
+        assertEquals(ZlibPayloadCodec.ENCODING_TYPE, getEncoding(encoded));
+        assertTrue(encoded.getSerializedSize() < payload.getSerializedSize());
+        assertEquals(payload, codec.decode(encoded));
+    }
+
+    @Test
+    void smallPayloadIsNotCompressed() {
+        ZlibPayloadCodec codec = new ZlibPayloadCodec(payloadsProperties(true));
+        Payload payload = payload("{\"seats\":\"12\"}");
+
+        assertSame(payload, codec.encode(payload));
+    }
+
+    @Test
+    void payloadThatDoesNotShrinkIsNotCompressed() {
+        ZlibPayloadCodec codec = new ZlibPayloadCodec(payloadsProperties(true));
+        byte[] data = new byte[4_096];
+        new Random(42).nextBytes(data);
+        Payload payload = Payload
+            .newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("binary/plain"))
+            .setData(ByteString.copyFrom(data))
+            .build();
+
+        assertSame(payload, codec.encode(payload));
+    }
+
+    @Test
+    void compressedPayloadIsReadWhenTheCompressionIsDisabled() {
+        Payload payload = payload("{\"seats\":\"" + "12,".repeat(2_000) + "\"}");
+        Payload encoded = new ZlibPayloadCodec(payloadsProperties(true)).encode(payload);
+
+        ZlibPayloadCodec codec = new ZlibPayloadCodec(payloadsProperties(false));
+
+        assertEquals(payload, codec.decode(encoded));
+        assertSame(payload, codec.encode(payload));
+    }
+
+    private static PayloadsProperties payloadsProperties(boolean compressionEnabled) {
+        PayloadsProperties payloads = new PayloadsProperties();
+        payloads.setCompressionEnabled(compressionEnabled);
+        payloads.setCompressionThreshold(DataSize.ofBytes(1_024));
+
+        return payloads;
+    }
+
+    static Payload payload(String json) {
+        return Payload
+            .newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+            .setData(ByteString.copyFromUtf8(json))
+            .build();
+    }
+
+    static String getEncoding(Payload payload) {
+        return payload.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8();
+    }
+}
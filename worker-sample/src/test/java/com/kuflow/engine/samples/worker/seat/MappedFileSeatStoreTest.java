@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.kuflow.engine.samples.worker.ApplicationProperties.SeatsProperties;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileSeatStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final SeatsProperties seatsProperties = new SeatsProperties();
+
+    @BeforeEach
+    void setUp() {
+        this.seatsProperties.setCapacity(10);
+        this.seatsProperties.getStore().setFile(this.directory.resolve("seats.dat").toString());
+    }
+
+    @Test
+    void reservationsSurviveReopening() throws IOException {
+        try (MappedFileSeatStore seatStore = new MappedFileSeatStore(this.seatsProperties)) {
+            assertEquals(1, seatStore.appendReservation("first", List.of("Ada", "Lovelace", "ada@example.com")));
+            assertEquals(2, seatStore.appendReservation("second", List.of("Alan", "Turing", "alan@example.com")));
+        }
+
+        try (MappedFileSeatStore seatStore = new MappedFileSeatStore(this.seatsProperties)) {
+            assertEquals(2, seatStore.getOccupiedSeats());
+            assertEquals(OptionalInt.of(2), seatStore.findReservation("second"));
+            assertEquals(3, seatStore.appendReservation("third", List.of("Grace", "Hopper", "grace@example.com")));
+        }
+    }
+
+    @Test
+    void fileInUseIsNotOpenedAgain() throws IOException {
+        try (MappedFileSeatStore seatStore = new MappedFileSeatStore(this.seatsProperties)) {
+            assertThrows(IOException.class, () -> new MappedFileSeatStore(this.seatsProperties));
+
+            assertEquals(1, seatStore.appendReservation("first", List.of("Ada", "Lovelace", "ada@example.com")));
+        }
+
+        try (MappedFileSeatStore seatStore = new MappedFileSeatStore(this.seatsProperties)) {
+            assertEquals(1, seatStore.getOccupiedSeats());
+        }
+    }
+}
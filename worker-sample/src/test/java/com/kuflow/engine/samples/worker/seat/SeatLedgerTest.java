@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.seat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SeatLedgerTest {
+
+    private static final int CAPACITY = 50;
+
+    private final SeatLedger seatLedger = new SeatLedger(SeatLedger.DEFAULT_ROUTE, CAPACITY);
+
+    @Test
+    void holdFailsUntilReconciled() {
+        assertThrows(IllegalStateException.class, () -> this.seatLedger.hold("reservation"));
+
+        this.seatLedger.reconcile(0);
+
+        assertTrue(this.seatLedger.hold("reservation"));
+    }
+
+    @Test
+    void concurrentHoldsNeverExceedTheCapacity() throws Exception {
+        this.seatLedger.reconcile(0);
+        int reservations = CAPACITY * 4;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> holds = new ArrayList<>();
+        try {
+            for (int i = 0; i < reservations; i++) {
+                String reservationId = "reservation-" + i;
+                holds.add(
+                    executor.submit(() -> {
+                        start.await();
+                        return this.seatLedger.hold(reservationId);
+                    })
+                );
+            }
+            start.countDown();
+
+            int held = 0;
+            for (Future<Boolean> hold : holds) {
+                held += hold.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(CAPACITY, held);
+            assertFalse(this.seatLedger.hold("late"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reservationHoldsASingleSeatAcrossAttempts() {
+        this.seatLedger.reconcile(CAPACITY - 2);
+
+        assertTrue(this.seatLedger.hold("reservation"));
+        // A second attempt while the first one is still writing the reservation
+        assertThrows(IllegalStateException.class, () -> this.seatLedger.hold("reservation"));
+
+        assertTrue(this.seatLedger.hold("other"));
+        assertFalse(this.seatLedger.hold("late"));
+    }
+
+    @Test
+    void cancelledSeatIsHeldAgain() {
+        this.seatLedger.reconcile(CAPACITY - 1);
+        assertTrue(this.seatLedger.hold("reservation"));
+
+        this.seatLedger.cancel("reservation");
+        // Nothing more is given back by a reservation that holds no seat
+        this.seatLedger.cancel("reservation");
+
+        assertTrue(this.seatLedger.hold("reservation"));
+        assertFalse(this.seatLedger.hold("other"));
+    }
+
+    @Test
+    void confirmedSeatStaysOccupied() {
+        this.seatLedger.reconcile(CAPACITY - 1);
+        assertTrue(this.seatLedger.hold("reservation"));
+
+        this.seatLedger.confirm("reservation");
+        this.seatLedger.cancel("reservation");
+
+        assertFalse(this.seatLedger.hold("other"));
+    }
+
+    @Test
+    void reconcileOnlyMovesForward() {
+        this.seatLedger.reconcile(CAPACITY - 1);
+        this.seatLedger.reconcile(0);
+        assertTrue(this.seatLedger.hold("reservation"));
+        assertFalse(this.seatLedger.hold("other"));
+
+        this.seatLedger.reconcile(CAPACITY + 10);
+        this.seatLedger.release(1);
+        assertFalse(this.seatLedger.hold("late"));
+    }
+
+    @Test
+    void reconcileTakesTheCapacityOfTheStore() {
+        this.seatLedger.reconcile(CAPACITY, CAPACITY + 1);
+        assertTrue(this.seatLedger.hold("reservation"));
+        assertFalse(this.seatLedger.hold("other"));
+
+        this.seatLedger.reconcile(CAPACITY, CAPACITY - 10);
+        this.seatLedger.cancel("reservation");
+        assertFalse(this.seatLedger.hold("late"));
+    }
+
+    @Test
+    void releasedSeatsAreHeldAgain() {
+        this.seatLedger.reconcile(CAPACITY);
+        assertFalse(this.seatLedger.hold("reservation"));
+
+        this.seatLedger.release(2);
+
+        assertTrue(this.seatLedger.hold("reservation"));
+        assertTrue(this.seatLedger.hold("other"));
+        assertFalse(this.seatLedger.hold("late"));
+    }
+}
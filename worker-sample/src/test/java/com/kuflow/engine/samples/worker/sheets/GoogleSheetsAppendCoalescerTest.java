@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.sheets.v4.Sheets;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GoogleSheetsAppendCoalescerTest {
+
+    private static final String SPREADSHEET_ID = "spreadsheet";
+
+    private static final String RANGE = "Sheet1!A5:C5";
+
+    private static final int CALLERS = 20;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+
+    private final AtomicInteger nextRow = new AtomicInteger(5);
+
+    private volatile SheetsServer server = this::appended;
+
+    private ExecutorService callers;
+
+    private GoogleSheetsAppendCoalescer appendCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getGoogleSheets().getAppend().setWindow(Duration.ofMillis(200));
+        applicationProperties.getTemporal().getGoogleSheetsActivities().getWrite().setStartToCloseTimeout(
+            Duration.ofSeconds(1)
+        );
+
+        MockHttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public LowLevelHttpResponse execute() throws IOException {
+                        GoogleSheetsAppendCoalescerTest.this.requests.incrementAndGet();
+                        return GoogleSheetsAppendCoalescerTest.this.server.respond(this);
+                    }
+                };
+            }
+        };
+        Sheets sheets = new Sheets.Builder(transport, GoogleSheetsCredentialProvider.JSON_FACTORY, null)
+            .setApplicationName("test")
+            .build();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.appendCoalescer =
+            new GoogleSheetsAppendCoalescer(
+                applicationProperties,
+                sheets,
+                new GoogleSheetsRequestMetrics(meterRegistry),
+                meterRegistry
+            );
+        this.callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.callers.shutdownNow();
+        this.appendCoalescer.destroy();
+    }
+
+    @Test
+    void concurrentRowsAreAppendedTogether() throws Exception {
+        List<Future<Integer>> appends = this.appendConcurrently();
+
+        Set<Integer> rows = new TreeSet<>();
+        for (Future<Integer> append : appends) {
+            rows.add(append.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(CALLERS, this.rowsWritten.get());
+        // Every caller is told the row its values were written to
+        assertEquals(IntStream.range(5, 5 + CALLERS).boxed().collect(Collectors.toSet()), rows);
+        assertTrue(this.requests.get() < CALLERS, "Rows appended in " + this.requests.get() + " requests");
+    }
+
+    @Test
+    void failedRequestFailsEveryRowOfTheBatch() throws Exception {
+        this.server = request -> new MockLowLevelHttpResponse().setStatusCode(500);
+
+        for (Future<Integer> append : this.appendConcurrently()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> append.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException, e.getCause().toString());
+        }
+    }
+
+    @Test
+    void errorFailsTheBatchAndKeepsAppending() throws Exception {
+        this.server =
+            request -> {
+                throw new StackOverflowError();
+            };
+        for (Future<Integer> append : this.appendConcurrently()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> append.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException, e.getCause().toString());
+        }
+
+        this.server = this::appended;
+        this.appendCoalescer.append(SPREADSHEET_ID, RANGE, List.of("Ada", "Lovelace", "ada@example.com"));
+        assertEquals(1, this.rowsWritten.get());
+    }
+
+    @Test
+    void appendGivesUpAfterTheWriteTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        this.server =
+            request -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return this.appended(request);
+            };
+
+        long start = System.nanoTime();
+        try {
+            assertThrows(
+                IOException.class,
+                () -> this.appendCoalescer.append(SPREADSHEET_ID, RANGE, List.of("Ada", "Lovelace", "ada@example.com"))
+            );
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void slowSpreadsheetDoesNotDelayTheOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        this.server =
+            request -> {
+                if (request.getUrl().contains("/slow/")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return this.appended(request);
+            };
+
+        try {
+            CompletableFuture<Integer> slow =
+                this.appendCoalescer.appendAsync("slow", RANGE, List.of("Ada", "Lovelace", "ada@example.com"));
+            // Left in flight while the other spreadsheet is written
+            Thread.sleep(300);
+
+            this.appendCoalescer.append(SPREADSHEET_ID, RANGE, List.of("Alan", "Turing", "alan@example.com"));
+            assertFalse(slow.isDone());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void appendAfterShutdownFails() throws InterruptedException {
+        this.appendCoalescer.destroy();
+
+        CompletableFuture<Integer> written =
+            this.appendCoalescer.appendAsync(SPREADSHEET_ID, RANGE, List.of("Ada", "Lovelace", "ada@example.com"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> written.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException, e.getCause().toString());
+        assertEquals(0, this.requests.get());
+    }
+
+    private List<Future<Integer>> appendConcurrently() {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> appends = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            List<Object> row = List.of("First " + i, "Last " + i, "passenger" + i + "@example.com");
+            appends.add(
+                this.callers.submit(() -> {
+                        start.await();
+                        return this.appendCoalescer.append(SPREADSHEET_ID, RANGE, row);
+                    })
+            );
+        }
+        start.countDown();
+
+        return appends;
+    }
+
+    private LowLevelHttpResponse appended(MockLowLevelHttpRequest request) throws IOException {
+        GenericJson body = GoogleSheetsCredentialProvider.JSON_FACTORY.fromString(
+            request.getContentAsString(),
+            GenericJson.class
+        );
+        int rows = ((List<?>) body.get("values")).size();
+        this.rowsWritten.addAndGet(rows);
+        int firstRow = this.nextRow.getAndAdd(rows);
+        String updatedRange = "'Sheet 1'!A" + firstRow + ":C" + (firstRow + rows - 1);
+
+        return new MockLowLevelHttpResponse()
+            .setContentType("application/json")
+            .setContent("{\"updates\":{\"updatedRange\":\"" + updatedRange + "\"}}");
+    }
+
+    @FunctionalInterface
+    private interface SheetsServer {
+        LowLevelHttpResponse respond(MockLowLevelHttpRequest request) throws IOException;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.ApplicationProperties.GoogleSheetsProperties.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GoogleSheetsRateLimiterTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicLong throttledAt = new AtomicLong();
+
+    private final AtomicLong lastSentAt = new AtomicLong();
+
+    private ExecutorService callers;
+
+    private MockHttpTransport transport;
+
+    private GoogleSheetsRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        RateLimitProperties rateLimit = applicationProperties.getGoogleSheets().getRateLimit();
+        // A request every 100ms, none in reserve
+        rateLimit.setReadRequestsPerMinute(600);
+        rateLimit.setBurst(1);
+
+        this.rateLimiter = new GoogleSheetsRateLimiter(applicationProperties, request -> {}, new SimpleMeterRegistry());
+        this.transport =
+            new MockHttpTransport() {
+                @Override
+                public LowLevelHttpRequest buildRequest(String method, String url) {
+                    return new MockLowLevelHttpRequest(url) {
+                        @Override
+                        public LowLevelHttpResponse execute() {
+                            return GoogleSheetsRateLimiterTest.this.respond();
+                        }
+                    };
+                }
+            };
+        this.callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.callers.shutdownNow();
+    }
+
+    @Test
+    void requestWaitingWhenTheBucketIsPausedWaitsForThePause() throws Exception {
+        Future<Integer> throttled = this.callers.submit(this::get);
+        // Takes its turn while the first request is in flight, before the bucket is paused
+        Thread.sleep(10);
+        Future<Integer> waiting = this.callers.submit(this::get);
+
+        assertEquals(429, throttled.get(5, TimeUnit.SECONDS));
+        assertEquals(200, waiting.get(5, TimeUnit.SECONDS));
+
+        long sentAfterNanos = this.lastSentAt.get() - this.throttledAt.get();
+        assertTrue(
+            sentAfterNanos >= RETRY_AFTER.toNanos(),
+            "Request sent " + TimeUnit.NANOSECONDS.toMillis(sentAfterNanos) + "ms after the bucket was paused"
+        );
+    }
+
+    private int get() throws IOException {
+        HttpRequest request =
+            this.transport.createRequestFactory(this.rateLimiter)
+                .buildGetRequest(new GenericUrl("https://sheets.googleapis.com/v4/spreadsheets/spreadsheet/values/A1"));
+        request.setThrowExceptionOnExecuteError(false);
+
+        return request.execute().getStatusCode();
+    }
+
+    private LowLevelHttpResponse respond() {
+        if (this.requests.incrementAndGet() > 1) {
+            this.lastSentAt.set(System.nanoTime());
+            return new MockLowLevelHttpResponse().setStatusCode(200);
+        }
+
+        // The second request reserves its turn meanwhile, 100ms ahead
+        sleep(50);
+        this.throttledAt.set(System.nanoTime());
+
+        return new MockLowLevelHttpResponse()
+            .setStatusCode(429)
+            .addHeader("Retry-After", String.valueOf(RETRY_AFTER.toSeconds()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
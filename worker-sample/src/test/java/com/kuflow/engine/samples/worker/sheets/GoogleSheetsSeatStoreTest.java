@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022-present KuFlow S.L.
+ *
+ * All rights reserved.
+ */
+
+package com.kuflow.engine.samples.worker.sheets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.sheets.v4.Sheets;
+import com.kuflow.engine.samples.worker.ApplicationProperties;
+import com.kuflow.engine.samples.worker.seat.SeatStoreFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GoogleSheetsSeatStoreTest {
+
+    private static final int CAPACITY = 2;
+
+    private final AtomicInteger nextRow = new AtomicInteger(5);
+
+    private final List<String> clearedRanges = new CopyOnWriteArrayList<>();
+
+    private volatile String reservationIds = "[]";
+
+    private GoogleSheetsAppendCoalescer appendCoalescer;
+
+    private GoogleSheetsSeatStore seatStore;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        MockHttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public LowLevelHttpResponse execute() {
+                        return GoogleSheetsSeatStoreTest.this.respond(URLDecoder.decode(url, StandardCharsets.UTF_8));
+                    }
+                };
+            }
+        };
+        Sheets sheets = new Sheets.Builder(transport, GoogleSheetsCredentialProvider.JSON_FACTORY, null)
+            .setApplicationName("test")
+            .build();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GoogleSheetsRequestMetrics requestMetrics = new GoogleSheetsRequestMetrics(meterRegistry);
+        this.appendCoalescer =
+            new GoogleSheetsAppendCoalescer(applicationProperties, sheets, requestMetrics, meterRegistry);
+        this.seatStore =
+            new GoogleSheetsSeatStore(
+                "spreadsheet",
+                "Sheet1",
+                sheets,
+                new GoogleSheetsValuesCache(applicationProperties),
+                this.appendCoalescer,
+                requestMetrics
+            );
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.appendCoalescer.destroy();
+    }
+
+    @Test
+    void reservationBeyondTheSeatsIsClearedAndRefused() throws IOException {
+        // Other workers have taken the seats meanwhile
+        this.nextRow.set(5 + CAPACITY);
+
+        assertThrows(
+            SeatStoreFullException.class,
+            () -> this.seatStore.appendReservation("reservation", List.of("Ada", "Lovelace", "ada@example.com"))
+        );
+
+        assertEquals(List.of("Sheet1!A7:D7"), this.clearedRanges);
+    }
+
+    @Test
+    void reservationWithinTheSeatsIsKept() throws IOException {
+        int seat = this.seatStore.appendReservation("reservation", List.of("Ada", "Lovelace", "ada@example.com"));
+
+        assertEquals(1, seat);
+        assertTrue(this.clearedRanges.isEmpty());
+    }
+
+    @Test
+    void reservationFoundBeyondTheSeatsIsClearedAndNotFound() throws IOException {
+        // Written by an attempt that failed before clearing it
+        this.reservationIds = "[[\"first\"],[\"second\"],[\"reservation\"]]";
+
+        assertEquals(OptionalInt.empty(), this.seatStore.findReservation("reservation"));
+        assertEquals(List.of("Sheet1!A7:D7"), this.clearedRanges);
+        assertEquals(OptionalInt.of(2), this.seatStore.findReservation("second"));
+    }
+
+    private LowLevelHttpResponse respond(String url) {
+        String path = url.substring(0, url.contains("?") ? url.indexOf('?') : url.length());
+        if (path.endsWith(":clear")) {
+            this.clearedRanges.add(path.substring(path.lastIndexOf('/') + 1, path.length() - ":clear".length()));
+            return this.json("{}");
+        }
+        if (path.endsWith(":append")) {
+            int row = this.nextRow.getAndIncrement();
+            return this.json("{\"updates\":{\"updatedRange\":\"Sheet1!A" + row + ":D" + row + "\"}}");
+        }
+        if (path.endsWith("Sheet1!C2:D2")) {
+            return this.json("{\"values\":[[" + CAPACITY + ",0]]}");
+        }
+        if (path.endsWith("Sheet1!D5:D")) {
+            return this.json("{\"values\":" + this.reservationIds + "}");
+        }
+
+        return new MockLowLevelHttpResponse().setStatusCode(404);
+    }
+
+    private LowLevelHttpResponse json(String content) {
+        return new MockLowLevelHttpResponse().setContentType("application/json").setContent(content);
+    }
+}